@@ -0,0 +1,81 @@
+package jp.ecnavi.evaluation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 計測を別の JVM で行なう. ヒープ, GC, JIT の状態を計測ごとに分けるために使う.
+ *
+ * 子の JVM には親と同じ classpath と JVM 引数を渡す. 子は結果の1行を
+ * RESULT を前に付けて標準出力に書き, それ以外の出力は親の標準エラー出力に流す.
+ */
+final class ChildJvm {
+    /**
+     * 子の JVM が結果の行の前に付ける印.
+     */
+    static final String RESULT = "RESULT\t";
+
+    /**
+     * ユーティリティクラスなのでコンストラクタは隠す.
+     */
+    private ChildJvm() {
+    }
+
+    /**
+     * 別の JVM で main を実行し, 結果の行を返す.
+     *
+     * @param mainClass main を持つクラス
+     * @param args 引数
+     * @return 結果の行. 子が結果を書かずに終わった場合は null
+     * @throws IOException I/O例外
+     * @throws InterruptedException 割り込み
+     */
+    static String run(final Class<?> mainClass, final List<String> args)
+        throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java")
+                .getPath());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .start();
+        process.getOutputStream().close();
+        BufferedReader out = new BufferedReader(new InputStreamReader(
+                    process.getInputStream(), "UTF-8"));
+        String row = null;
+        try {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    row = line.substring(RESULT.length());
+                } else {
+                    System.err.println(line);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        process.waitFor();
+        return row;
+    }
+
+    /**
+     * 子の JVM として結果の行を書いて終了する. Solr のスレッドが残っていても終わらせる.
+     *
+     * @param row 結果の行
+     */
+    static void exit(final String row) {
+        System.out.println(RESULT + row);
+        System.out.flush();
+        System.exit(0);
+    }
+}
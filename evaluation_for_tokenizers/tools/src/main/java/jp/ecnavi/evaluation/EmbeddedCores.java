@@ -0,0 +1,125 @@
+package jp.ecnavi.evaluation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.CoreDescriptor;
+import org.apache.solr.core.SolrConfig;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.SolrResourceLoader;
+import org.apache.solr.schema.IndexSchema;
+import org.xml.sax.SAXException;
+
+/**
+ * evaluation_for_tokenizers/solr 以下の設定をプロセス内の Solr で開く.
+ *
+ * 各設定の solrconfig.xml の dataDir は評価に使ったマシンのパスなので使わず,
+ * 指定したディレクトリに索引を作る. Solr 本体は classpath にある版 (3.1) を使う.
+ * gosen, igo, kuromoji などの Tokenizer の jar は classpath に加えること.
+ */
+final class EmbeddedCores {
+    /**
+     * ユーティリティクラスなのでコンストラクタは隠す.
+     */
+    private EmbeddedCores() {
+    }
+
+    /**
+     * conf/schema.xml を持つディレクトリを名前順に返す.
+     *
+     * @param solrHome evaluation_for_tokenizers/solr
+     * @return 設定のディレクトリ
+     */
+    static List<File> findCores(final File solrHome) {
+        List<File> cores = new ArrayList<File>();
+        File[] dirs = solrHome.listFiles();
+        if (dirs == null) {
+            throw new IllegalArgumentException(solrHome + " is not a directory");
+        }
+        Arrays.sort(dirs);
+        for (File dir : dirs) {
+            if (new File(dir, "conf/schema.xml").isFile()) {
+                cores.add(dir);
+            }
+        }
+        return cores;
+    }
+
+    /**
+     * コアを入れるコンテナを作る.
+     *
+     * @param solrHome evaluation_for_tokenizers/solr
+     * @return コンテナ
+     */
+    static CoreContainer newContainer(final File solrHome) {
+        return new CoreContainer(new SolrResourceLoader(solrHome.getPath()));
+    }
+
+    /**
+     * 設定のディレクトリからコアを開き, コンテナに登録する.
+     *
+     * @param container コンテナ
+     * @param instanceDir 設定のディレクトリ
+     * @param dataDir 索引を置くディレクトリ
+     * @return コア
+     * @throws IOException I/O例外
+     * @throws ParserConfigurationException 設定の読み込みの例外
+     * @throws SAXException 設定の読み込みの例外
+     */
+    static SolrCore open(final CoreContainer container, final File instanceDir,
+            final File dataDir) throws IOException,
+            ParserConfigurationException, SAXException {
+        String name = instanceDir.getName();
+        CoreDescriptor descriptor = new CoreDescriptor(container, name,
+                instanceDir.getPath());
+        SolrConfig config = new SolrConfig(instanceDir.getPath(),
+                descriptor.getConfigName(), null);
+        IndexSchema schema = new IndexSchema(config,
+                descriptor.getSchemaName(), null);
+        SolrCore core = new SolrCore(name, dataDir.getPath() + File.separator,
+                config, schema, descriptor);
+        container.register(name, core, false);
+        return core;
+    }
+
+    /**
+     * ディレクトリ以下のファイルの大きさの合計を返す.
+     *
+     * @param dir ディレクトリ
+     * @return バイト数
+     */
+    static long directorySize(final File dir) {
+        long size = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                size += f.isDirectory() ? directorySize(f) : f.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * ディレクトリを中身ごと消す.
+     *
+     * @param dir ディレクトリ
+     * @throws IOException 消せなかった場合
+     */
+    static void delete(final File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        if (dir.exists() && !dir.delete()) {
+            throw new IOException("cannot delete " + dir);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package jp.ecnavi.evaluation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.util.RefCounted;
+
+/**
+ * evaluation_for_tokenizers/solr 以下の各設定で, 同じ TSV をプロセス内の Solr に
+ * 索引し, 結果を CSV に出力する.
+ *
+ * Tomcat と curl で比べると HTTP などの時間が混ざり, 手作業にもなるので,
+ * 設定の変更のたびに同じ条件で比べ直すために使う. 各設定ごとに
+ * 文書数, 秒数, 文書数/秒, ヒープ使用量の最大値 (50ミリ秒ごとの標本), GC の時間,
+ * 索引の大きさ, ユニークな語の数 (TSV の id 以外の列のフィールドの合計) を出力する.
+ * ヒープと GC を設定ごとに分けて計るため, 既定では設定ごとに別の JVM を起動する.
+ *
+ * <pre>
+ * java -Xmx2G -cp target/evaluation-tools.jar:gosen.jar jp.ecnavi.evaluation.IndexingBenchmark \
+ *     -solr ../solr [-cores solr31_cjk,solr31_gosen] [-data /tmp/index] \
+ *     [-limit 文書数] [-o result.csv] [-nofork] jawiki.tsv
+ * </pre>
+ *
+ * 索引は TSV を /update/csv で投入した場合と同じく更新処理のチェインを通し,
+ * 最後に1度だけ commit する. Solr 本体は classpath にある版を使うので,
+ * solr14 の設定も Solr 3.1 で動かした結果になる.
+ */
+public final class IndexingBenchmark {
+    /**
+     * CSV の見出し.
+     */
+    private static final String HEADER = "core,documents,seconds,docs_per_sec,"
+            + "peak_heap_mb,gc_ms,index_bytes,unique_terms,error";
+    /**
+     * 見出しがない TSV の列名.
+     */
+    private static final String[] DEFAULT_COLUMNS = {"id", "title", "text"};
+    /**
+     * ヒープ使用量を調べる間隔(ミリ秒).
+     */
+    private static final long SAMPLE_INTERVAL = 50;
+
+    /**
+     * evaluation_for_tokenizers/solr.
+     */
+    private final File solrHome;
+    /**
+     * 索引を置くディレクトリ. 設定ごとにこの下に作る.
+     */
+    private final File dataRoot;
+    /**
+     * 入力の TSV.
+     */
+    private final File tsv;
+    /**
+     * 索引する最大の文書数. 負なら全て.
+     */
+    private final long limit;
+
+    /**
+     * ヒープ使用量の最大値を調べるスレッド.
+     */
+    private static final class HeapSampler extends Thread {
+        /**
+         * ヒープの情報.
+         */
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        /**
+         * ヒープ使用量の最大値.
+         */
+        private volatile long peak;
+        /**
+         * 止めるかどうか.
+         */
+        private volatile boolean stopped;
+
+        /**
+         * コンストラクタ.
+         */
+        private HeapSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                sample();
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * ヒープ使用量を調べる.
+         */
+        private void sample() {
+            long used = memory.getHeapMemoryUsage().getUsed();
+            if (used > peak) {
+                peak = used;
+            }
+        }
+
+        /**
+         * 止めて最大値を返す.
+         *
+         * @return ヒープ使用量の最大値
+         */
+        private long finish() {
+            stopped = true;
+            sample();
+            return peak;
+        }
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param solrHome evaluation_for_tokenizers/solr
+     * @param dataRoot 索引を置くディレクトリ
+     * @param tsv 入力の TSV
+     * @param limit 索引する最大の文書数. 負なら全て
+     */
+    private IndexingBenchmark(final File solrHome, final File dataRoot,
+            final File tsv, final long limit) {
+        this.solrHome = solrHome;
+        this.dataRoot = dataRoot;
+        this.tsv = tsv;
+        this.limit = limit;
+    }
+
+    /**
+     * GC の時間の合計を返す.
+     *
+     * @return ミリ秒
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory
+                .getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * CSV の値を必要なら引用符で囲む.
+     *
+     * @param value 値
+     * @return CSV の値
+     */
+    static String quote(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"").replace('\n', ' ') + '"';
+    }
+
+    /**
+     * 失敗した場合の CSV の行を返す.
+     *
+     * @param name 設定の名前
+     * @param error 失敗の内容
+     * @return CSV の行
+     */
+    private static String errorRow(final String name, final String error) {
+        return quote(name) + ",,,,,,,," + quote(error);
+    }
+
+    /**
+     * 1つの設定で索引し, CSV の行を返す.
+     *
+     * @param instanceDir 設定のディレクトリ
+     * @return CSV の行
+     */
+    private String runCore(final File instanceDir) {
+        String name = instanceDir.getName();
+        CoreContainer container = EmbeddedCores.newContainer(solrHome);
+        try {
+            File dataDir = new File(dataRoot, name);
+            EmbeddedCores.delete(dataDir);
+            SolrCore core = EmbeddedCores.open(container, instanceDir, dataDir);
+
+            System.gc();
+            HeapSampler sampler = new HeapSampler();
+            sampler.start();
+            long gcStart = gcMillis();
+            long start = System.nanoTime();
+            List<String> fields = new ArrayList<String>();
+            long documents = index(core, fields);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long gc = gcMillis() - gcStart;
+            long peak = sampler.finish();
+
+            String uniqueKey = core.getSchema().getUniqueKeyField() == null ? null
+                    : core.getSchema().getUniqueKeyField().getName();
+            fields.remove(uniqueKey);
+            long terms = countTerms(core, fields);
+            long indexBytes = EmbeddedCores.directorySize(new File(core
+                    .getIndexDir()));
+            return String.format("%s,%d,%.2f,%.1f,%.1f,%d,%d,%d,", quote(name),
+                    documents, seconds, documents / seconds,
+                    peak / 1024.0 / 1024.0, gc, indexBytes, terms);
+        } catch (Throwable t) {
+            // gosen などの jar がない場合も他の設定は続ける
+            t.printStackTrace();
+            return errorRow(name, t.toString());
+        } finally {
+            container.shutdown();
+        }
+    }
+
+    /**
+     * TSV を索引し, 最後に commit する.
+     *
+     * @param core コア
+     * @param fields TSV の列名を入れるリスト
+     * @return 索引した文書数
+     * @throws IOException I/O例外
+     */
+    private long index(final SolrCore core, final List<String> fields)
+        throws IOException {
+        SolrQueryRequest req = new LocalSolrQueryRequest(core,
+                new NamedList<Object>());
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(tsv), "UTF-8"), 1 << 16);
+        long documents = 0;
+        try {
+            UpdateRequestProcessor processor = core.getUpdateProcessingChain(
+                    null).createProcessor(req, new SolrQueryResponse());
+            AddUpdateCommand cmd = new AddUpdateCommand();
+            String line = in.readLine();
+            String[] columns = DEFAULT_COLUMNS;
+            if (line != null && line.startsWith("id\t")) {
+                columns = line.split("\t");
+                line = in.readLine();
+            }
+            for (String column : columns) {
+                fields.add(column);
+            }
+            for (; line != null && (limit < 0 || documents < limit); line = in
+                    .readLine()) {
+                String[] values = line.split("\t", columns.length);
+                SolrInputDocument doc = new SolrInputDocument();
+                for (int i = 0; i < values.length; ++i) {
+                    // /update/csv と同じく空の値は入れない
+                    if (values[i].length() > 0) {
+                        doc.addField(columns[i], values[i]);
+                    }
+                }
+                cmd.clear();
+                cmd.allowDups = false;
+                cmd.overwritePending = true;
+                cmd.overwriteCommitted = true;
+                cmd.solrDoc = doc;
+                processor.processAdd(cmd);
+                ++documents;
+            }
+            processor.processCommit(new CommitUpdateCommand(false));
+            processor.finish();
+        } finally {
+            in.close();
+            req.close();
+        }
+        return documents;
+    }
+
+    /**
+     * フィールドのユニークな語の数の合計を返す.
+     *
+     * @param core コア
+     * @param fields フィールド
+     * @return 語の数
+     * @throws IOException I/O例外
+     */
+    private static long countTerms(final SolrCore core,
+            final List<String> fields) throws IOException {
+        RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+        try {
+            IndexReader reader = searcher.get().getIndexReader();
+            long terms = 0;
+            for (String field : fields) {
+                TermEnum te = reader.terms(new Term(field, ""));
+                try {
+                    do {
+                        Term t = te.term();
+                        if (t == null || !t.field().equals(field)) {
+                            break;
+                        }
+                        ++terms;
+                    } while (te.next());
+                } finally {
+                    te.close();
+                }
+            }
+            return terms;
+        } finally {
+            searcher.decref();
+        }
+    }
+
+    /**
+     * 1つの設定を別の JVM で索引し, CSV の行を返す.
+     *
+     * @param instanceDir 設定のディレクトリ
+     * @return CSV の行
+     * @throws IOException I/O例外
+     * @throws InterruptedException 割り込み
+     */
+    private String fork(final File instanceDir) throws IOException,
+            InterruptedException {
+        List<String> args = new ArrayList<String>();
+        args.add("-child");
+        args.add("-solr");
+        args.add(solrHome.getPath());
+        args.add("-cores");
+        args.add(instanceDir.getName());
+        args.add("-data");
+        args.add(dataRoot.getPath());
+        args.add("-limit");
+        args.add(Long.toString(limit));
+        args.add(tsv.getPath());
+        String row = ChildJvm.run(IndexingBenchmark.class, args);
+        if (row == null) {
+            return errorRow(instanceDir.getName(), "child failed");
+        }
+        return row;
+    }
+
+    /**
+     * 使い方を表示して終了する.
+     */
+    private static void usage() {
+        System.err.println("usage: IndexingBenchmark -solr dir [-cores a,b]"
+                + " [-data dir] [-limit documents] [-o result.csv] [-nofork]"
+                + " jawiki.tsv");
+        System.exit(1);
+    }
+
+    /**
+     * メイン.
+     *
+     * @param args 引数
+     * @throws Exception 処理中の例外
+     */
+    public static void main(final String[] args) throws Exception {
+        File solrHome = null;
+        String cores = null;
+        File dataRoot = new File(System.getProperty("java.io.tmpdir"),
+                "indexing-benchmark");
+        long limit = -1;
+        String output = null;
+        boolean doFork = true;
+        boolean child = false;
+        File tsv = null;
+        for (int i = 0; i < args.length; ++i) {
+            if (i + 1 < args.length && args[i].equals("-solr")) {
+                solrHome = new File(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-cores")) {
+                cores = args[++i];
+            } else if (i + 1 < args.length && args[i].equals("-data")) {
+                dataRoot = new File(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-limit")) {
+                limit = Long.parseLong(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-o")) {
+                output = args[++i];
+            } else if (args[i].equals("-nofork")) {
+                doFork = false;
+            } else if (args[i].equals("-child")) {
+                child = true;
+            } else if (tsv == null && !args[i].startsWith("-")) {
+                tsv = new File(args[i]);
+            } else {
+                usage();
+            }
+        }
+        if (solrHome == null || tsv == null) {
+            usage();
+        }
+
+        List<File> instanceDirs = new ArrayList<File>();
+        if (cores == null) {
+            instanceDirs = EmbeddedCores.findCores(solrHome);
+        } else {
+            for (String name : cores.split(",")) {
+                instanceDirs.add(new File(solrHome, name.trim()));
+            }
+        }
+
+        IndexingBenchmark benchmark = new IndexingBenchmark(solrHome, dataRoot,
+                tsv, limit);
+        if (child) {
+            ChildJvm.exit(benchmark.runCore(instanceDirs.get(0)));
+        }
+
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                    output == null ? System.out : new FileOutputStream(output),
+                    "UTF-8"));
+        try {
+            out.println(HEADER);
+            out.flush();
+            for (File instanceDir : instanceDirs) {
+                String row = doFork ? benchmark.fork(instanceDir) : benchmark
+                        .runCore(instanceDir);
+                out.println(row);
+                out.flush();
+            }
+        } finally {
+            out.close();
+        }
+        // Solr のスレッドが残ることがある
+        System.exit(0);
+    }
+}
@@ -0,0 +1,201 @@
+package jp.ecnavi.evaluation;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.Lock;
+import org.apache.lucene.store.LockFactory;
+
+/**
+ * 転置リスト (.frq, .prx) から読んだバイト数を数える Directory.
+ *
+ * 読み込みのたびに数えるので遅くなる. 時間を計る検索には使わないこと.
+ * 複合ファイル (.cfs) の中の転置リストは数えない. 評価用の設定は
+ * useCompoundFile が false なので問題ない.
+ */
+final class PostingsCountingDirectory extends Directory {
+    /**
+     * 元の Directory.
+     */
+    private final Directory delegate;
+    /**
+     * 読んだバイト数.
+     */
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    /**
+     * 数えながら読む IndexInput.
+     */
+    private static final class CountingIndexInput extends IndexInput {
+        /**
+         * 元の IndexInput. clone() で置き換えるので final にしない.
+         */
+        private IndexInput in;
+        /**
+         * 読んだバイト数.
+         */
+        private final AtomicLong bytesRead;
+
+        /**
+         * コンストラクタ.
+         *
+         * @param in 元の IndexInput
+         * @param bytesRead 読んだバイト数
+         */
+        private CountingIndexInput(final IndexInput in,
+                final AtomicLong bytesRead) {
+            this.in = in;
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            bytesRead.incrementAndGet();
+            return in.readByte();
+        }
+
+        @Override
+        public void readBytes(final byte[] b, final int offset, final int len)
+            throws IOException {
+            bytesRead.addAndGet(len);
+            in.readBytes(b, offset, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public long getFilePointer() {
+            return in.getFilePointer();
+        }
+
+        @Override
+        public void seek(final long pos) throws IOException {
+            in.seek(pos);
+        }
+
+        @Override
+        public long length() {
+            return in.length();
+        }
+
+        @Override
+        public Object clone() {
+            CountingIndexInput clone = (CountingIndexInput) super.clone();
+            clone.in = (IndexInput) in.clone();
+            return clone;
+        }
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param delegate 元の Directory
+     */
+    PostingsCountingDirectory(final Directory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 転置リストから読んだバイト数を返す.
+     *
+     * @return バイト数
+     */
+    long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * 転置リストのファイルかどうか.
+     *
+     * @param name ファイル名
+     * @return 転置リストならtrue
+     */
+    private static boolean isPostings(final String name) {
+        return name.endsWith(".frq") || name.endsWith(".prx");
+    }
+
+    @Override
+    public IndexInput openInput(final String name) throws IOException {
+        IndexInput in = delegate.openInput(name);
+        return isPostings(name) ? new CountingIndexInput(in, bytesRead) : in;
+    }
+
+    @Override
+    public IndexInput openInput(final String name, final int bufferSize)
+        throws IOException {
+        IndexInput in = delegate.openInput(name, bufferSize);
+        return isPostings(name) ? new CountingIndexInput(in, bytesRead) : in;
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        return delegate.listAll();
+    }
+
+    @Override
+    public boolean fileExists(final String name) throws IOException {
+        return delegate.fileExists(name);
+    }
+
+    @Override
+    public long fileModified(final String name) throws IOException {
+        return delegate.fileModified(name);
+    }
+
+    @Override
+    public void touchFile(final String name) throws IOException {
+        delegate.touchFile(name);
+    }
+
+    @Override
+    public void deleteFile(final String name) throws IOException {
+        delegate.deleteFile(name);
+    }
+
+    @Override
+    public long fileLength(final String name) throws IOException {
+        return delegate.fileLength(name);
+    }
+
+    @Override
+    public IndexOutput createOutput(final String name) throws IOException {
+        return delegate.createOutput(name);
+    }
+
+    @Override
+    public void sync(final Collection<String> names) throws IOException {
+        delegate.sync(names);
+    }
+
+    @Override
+    public Lock makeLock(final String name) {
+        return delegate.makeLock(name);
+    }
+
+    @Override
+    public void clearLock(final String name) throws IOException {
+        delegate.clearLock(name);
+    }
+
+    @Override
+    public LockFactory getLockFactory() {
+        return delegate.getLockFactory();
+    }
+
+    @Override
+    public String getLockID() {
+        return delegate.getLockID();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
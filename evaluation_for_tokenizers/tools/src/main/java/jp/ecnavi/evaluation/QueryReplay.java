@@ -0,0 +1,491 @@
+package jp.ecnavi.evaluation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+
+/**
+ * IndexingBenchmark で作った索引に対して検索のログを流し, 設定ごとの
+ * 検索時間の分布 (p50, p95, p99), 転置リスト (.frq, .prx) から読んだバイト数,
+ * ヒット数を CSV に出力する.
+ *
+ * bi-gram や n-gram の設定では, 利用者の入力が長いフレーズ検索になるので,
+ * 索引の大きさと合わせて検索の重さを比べるために使う.
+ *
+ * <pre>
+ * java -cp target/evaluation-tools.jar:gosen.jar jp.ecnavi.evaluation.QueryReplay \
+ *     -solr ../solr [-cores solr31_cjk,solr31_gosen] [-data /tmp/index] \
+ *     [-defType lucene] [-rows 10] [-warmup 1] [-o result.csv] \
+ *     [-detail queries.csv] [-nofork] queries.txt
+ * </pre>
+ *
+ * 検索のログは1行に1つの q の値を書く. 空行と # で始まる行は読み飛ばす.
+ * -data には IndexingBenchmark と同じディレクトリを指定する.
+ *
+ * 検索時間は, 解析を含めて QParser でクエリを作ってから上位 rows 件を得るまでの時間で,
+ * Solr のキャッシュを通さずに計る. バイト数は読み込みを数える Directory で
+ * 索引を開き直して別に数える. 数えながら検索すると時間が変わるためである.
+ * JIT の状態を設定ごとに分けるため, 既定では設定ごとに別の JVM を起動する.
+ */
+public final class QueryReplay {
+    /**
+     * CSV の見出し.
+     */
+    private static final String HEADER = "core,queries,failed_queries,p50_ms,"
+            + "p95_ms,p99_ms,mean_ms,total_hits,zero_hit_queries,postings_bytes,"
+            + "postings_bytes_per_query,error";
+    /**
+     * クエリごとの CSV の見出し.
+     */
+    private static final String DETAIL_HEADER = "core,query,ms,hits,"
+            + "postings_bytes";
+
+    /**
+     * evaluation_for_tokenizers/solr.
+     */
+    private final File solrHome;
+    /**
+     * 索引を置いたディレクトリ.
+     */
+    private final File dataRoot;
+    /**
+     * 検索のログ.
+     */
+    private final File queryLog;
+    /**
+     * クエリの解析器の名前.
+     */
+    private final String defType;
+    /**
+     * 取得する件数.
+     */
+    private final int rows;
+    /**
+     * 計る前に流す回数.
+     */
+    private final int warmup;
+    /**
+     * クエリごとの結果の出力先. null なら出力しない.
+     */
+    private final File detail;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param solrHome evaluation_for_tokenizers/solr
+     * @param dataRoot 索引を置いたディレクトリ
+     * @param queryLog 検索のログ
+     * @param defType クエリの解析器の名前
+     * @param rows 取得する件数
+     * @param warmup 計る前に流す回数
+     * @param detail クエリごとの結果の出力先
+     */
+    private QueryReplay(final File solrHome, final File dataRoot,
+            final File queryLog, final String defType, final int rows,
+            final int warmup, final File detail) {
+        this.solrHome = solrHome;
+        this.dataRoot = dataRoot;
+        this.queryLog = queryLog;
+        this.defType = defType;
+        this.rows = rows;
+        this.warmup = warmup;
+        this.detail = detail;
+    }
+
+    /**
+     * 検索のログを読む.
+     *
+     * @return q の値
+     * @throws IOException I/O例外
+     */
+    private List<String> readQueries() throws IOException {
+        List<String> queries = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(queryLog), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#")) {
+                    queries.add(line);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return queries;
+    }
+
+    /**
+     * 順位が p パーセントの値を返す (nearest rank).
+     *
+     * @param sorted 昇順に並べた値
+     * @param p パーセント
+     * @return 値
+     */
+    private static long percentile(final long[] sorted, final double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * 失敗した場合の CSV の行を返す.
+     *
+     * @param name 設定の名前
+     * @param error 失敗の内容
+     * @return CSV の行
+     */
+    private static String errorRow(final String name, final String error) {
+        return IndexingBenchmark.quote(name) + ",,,,,,,,,,,"
+                + IndexingBenchmark.quote(error);
+    }
+
+    /**
+     * クエリを解析する. 解析できない場合は null を返す.
+     *
+     * @param core コア
+     * @param q q の値
+     * @return クエリ
+     */
+    private Query parse(final SolrCore core, final String q) {
+        SolrQueryRequest req = new LocalSolrQueryRequest(core,
+                new NamedList<Object>());
+        try {
+            return QParser.getParser(q, defType, req).getQuery();
+        } catch (Exception e) {
+            return null;
+        } finally {
+            req.close();
+        }
+    }
+
+    /**
+     * 1つの設定で検索のログを流し, CSV の行を返す.
+     *
+     * @param instanceDir 設定のディレクトリ
+     * @param queries q の値
+     * @return CSV の行
+     */
+    private String runCore(final File instanceDir, final List<String> queries) {
+        String name = instanceDir.getName();
+        File dataDir = new File(dataRoot, name);
+        CoreContainer container = null;
+        try {
+            Directory indexDir = FSDirectory.open(new File(dataDir, "index"));
+            try {
+                if (!IndexReader.indexExists(indexDir)) {
+                    // 空の索引を作ってしまわないように, 開く前に調べる
+                    return errorRow(name, "no index in " + dataDir
+                            + "; run IndexingBenchmark first");
+                }
+            } finally {
+                indexDir.close();
+            }
+            container = EmbeddedCores.newContainer(solrHome);
+            SolrCore core = EmbeddedCores.open(container, instanceDir, dataDir);
+
+            long[] nanos = new long[queries.size()];
+            Query[] parsed = new Query[queries.size()];
+            RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+            try {
+                for (int pass = 0; pass <= warmup; ++pass) {
+                    for (int i = 0; i < queries.size(); ++i) {
+                        long start = System.nanoTime();
+                        Query query = parse(core, queries.get(i));
+                        if (query != null) {
+                            searcher.get().search(query, null, rows);
+                        }
+                        nanos[i] = System.nanoTime() - start;
+                        parsed[i] = query;
+                    }
+                }
+            } finally {
+                searcher.decref();
+            }
+
+            int[] hits = new int[queries.size()];
+            long[] bytes = new long[queries.size()];
+            countPostings(new File(core.getIndexDir()), parsed, hits, bytes);
+            writeDetail(name, queries, parsed, nanos, hits, bytes);
+            return summary(name, parsed, nanos, hits, bytes);
+        } catch (Throwable t) {
+            // gosen などの jar がない場合も他の設定は続ける
+            t.printStackTrace();
+            return errorRow(name, t.toString());
+        } finally {
+            if (container != null) {
+                container.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 読み込みを数える Directory で索引を開き, クエリごとのヒット数と
+     * 転置リストから読んだバイト数を調べる.
+     *
+     * @param indexDir 索引のディレクトリ
+     * @param queries クエリ. 解析できなかったものは null
+     * @param hits ヒット数を入れる配列
+     * @param bytes バイト数を入れる配列
+     * @throws IOException I/O例外
+     */
+    private void countPostings(final File indexDir, final Query[] queries,
+            final int[] hits, final long[] bytes) throws IOException {
+        PostingsCountingDirectory dir = new PostingsCountingDirectory(
+                FSDirectory.open(indexDir));
+        IndexReader reader = IndexReader.open(dir, true);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        try {
+            for (int i = 0; i < queries.length; ++i) {
+                if (queries[i] == null) {
+                    continue;
+                }
+                long before = dir.getBytesRead();
+                hits[i] = searcher.search(queries[i], null, rows).totalHits;
+                bytes[i] = dir.getBytesRead() - before;
+            }
+        } finally {
+            searcher.close();
+            reader.close();
+            dir.close();
+        }
+    }
+
+    /**
+     * 設定ごとの CSV の行を作る.
+     *
+     * @param name 設定の名前
+     * @param queries クエリ. 解析できなかったものは null
+     * @param nanos クエリごとの時間(ナノ秒)
+     * @param hits クエリごとのヒット数
+     * @param bytes クエリごとのバイト数
+     * @return CSV の行
+     */
+    private static String summary(final String name, final Query[] queries,
+            final long[] nanos, final int[] hits, final long[] bytes) {
+        long[] sorted = new long[queries.length];
+        int count = 0;
+        long totalNanos = 0;
+        long totalHits = 0;
+        long totalBytes = 0;
+        int zeroHits = 0;
+        for (int i = 0; i < queries.length; ++i) {
+            if (queries[i] == null) {
+                continue;
+            }
+            sorted[count++] = nanos[i];
+            totalNanos += nanos[i];
+            totalHits += hits[i];
+            totalBytes += bytes[i];
+            if (hits[i] == 0) {
+                ++zeroHits;
+            }
+        }
+        if (count == 0) {
+            return errorRow(name, "no queries");
+        }
+        sorted = Arrays.copyOf(sorted, count);
+        Arrays.sort(sorted);
+        return String.format("%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%.1f,",
+                IndexingBenchmark.quote(name), count, queries.length - count,
+                percentile(sorted, 50) / 1e6, percentile(sorted, 95) / 1e6,
+                percentile(sorted, 99) / 1e6, totalNanos / 1e6 / count,
+                totalHits, zeroHits, totalBytes, (double) totalBytes / count);
+    }
+
+    /**
+     * クエリごとの結果を追記する. 子の JVM からも書くので追記で開く.
+     *
+     * @param name 設定の名前
+     * @param queries q の値
+     * @param parsed クエリ. 解析できなかったものは null
+     * @param nanos クエリごとの時間(ナノ秒)
+     * @param hits クエリごとのヒット数
+     * @param bytes クエリごとのバイト数
+     * @throws IOException I/O例外
+     */
+    private void writeDetail(final String name, final List<String> queries,
+            final Query[] parsed, final long[] nanos, final int[] hits,
+            final long[] bytes) throws IOException {
+        if (detail == null) {
+            return;
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                    new FileOutputStream(detail, true), "UTF-8"));
+        try {
+            for (int i = 0; i < parsed.length; ++i) {
+                if (parsed[i] == null) {
+                    out.println(IndexingBenchmark.quote(name) + ","
+                            + IndexingBenchmark.quote(queries.get(i)) + ",,,");
+                } else {
+                    out.println(String.format("%s,%s,%.3f,%d,%d",
+                            IndexingBenchmark.quote(name),
+                            IndexingBenchmark.quote(queries.get(i)),
+                            nanos[i] / 1e6, hits[i], bytes[i]));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 1つの設定を別の JVM で検索し, CSV の行を返す.
+     *
+     * @param instanceDir 設定のディレクトリ
+     * @return CSV の行
+     * @throws IOException I/O例外
+     * @throws InterruptedException 割り込み
+     */
+    private String fork(final File instanceDir) throws IOException,
+            InterruptedException {
+        List<String> args = new ArrayList<String>();
+        args.add("-child");
+        args.add("-solr");
+        args.add(solrHome.getPath());
+        args.add("-cores");
+        args.add(instanceDir.getName());
+        args.add("-data");
+        args.add(dataRoot.getPath());
+        args.add("-defType");
+        args.add(defType);
+        args.add("-rows");
+        args.add(Integer.toString(rows));
+        args.add("-warmup");
+        args.add(Integer.toString(warmup));
+        if (detail != null) {
+            args.add("-detail");
+            args.add(detail.getPath());
+        }
+        args.add(queryLog.getPath());
+        String row = ChildJvm.run(QueryReplay.class, args);
+        if (row == null) {
+            return errorRow(instanceDir.getName(), "child failed");
+        }
+        return row;
+    }
+
+    /**
+     * 使い方を表示して終了する.
+     */
+    private static void usage() {
+        System.err.println("usage: QueryReplay -solr dir [-cores a,b]"
+                + " [-data dir] [-defType lucene] [-rows 10] [-warmup 1]"
+                + " [-o result.csv] [-detail queries.csv] [-nofork]"
+                + " queries.txt");
+        System.exit(1);
+    }
+
+    /**
+     * メイン.
+     *
+     * @param args 引数
+     * @throws Exception 処理中の例外
+     */
+    public static void main(final String[] args) throws Exception {
+        File solrHome = null;
+        String cores = null;
+        File dataRoot = new File(System.getProperty("java.io.tmpdir"),
+                "indexing-benchmark");
+        String defType = "lucene";
+        int rows = 10;
+        int warmup = 1;
+        String output = null;
+        File detail = null;
+        boolean doFork = true;
+        boolean child = false;
+        File queryLog = null;
+        for (int i = 0; i < args.length; ++i) {
+            if (i + 1 < args.length && args[i].equals("-solr")) {
+                solrHome = new File(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-cores")) {
+                cores = args[++i];
+            } else if (i + 1 < args.length && args[i].equals("-data")) {
+                dataRoot = new File(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-defType")) {
+                defType = args[++i];
+            } else if (i + 1 < args.length && args[i].equals("-rows")) {
+                rows = Integer.parseInt(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-warmup")) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-o")) {
+                output = args[++i];
+            } else if (i + 1 < args.length && args[i].equals("-detail")) {
+                detail = new File(args[++i]);
+            } else if (args[i].equals("-nofork")) {
+                doFork = false;
+            } else if (args[i].equals("-child")) {
+                child = true;
+            } else if (queryLog == null && !args[i].startsWith("-")) {
+                queryLog = new File(args[i]);
+            } else {
+                usage();
+            }
+        }
+        if (solrHome == null || queryLog == null || rows < 1 || warmup < 0) {
+            usage();
+        }
+
+        List<File> instanceDirs = new ArrayList<File>();
+        if (cores == null) {
+            instanceDirs = EmbeddedCores.findCores(solrHome);
+        } else {
+            for (String name : cores.split(",")) {
+                instanceDirs.add(new File(solrHome, name.trim()));
+            }
+        }
+
+        QueryReplay replay = new QueryReplay(solrHome, dataRoot, queryLog,
+                defType, rows, warmup, detail);
+        List<String> queries = replay.readQueries();
+        if (child) {
+            ChildJvm.exit(replay.runCore(instanceDirs.get(0), queries));
+        }
+
+        if (detail != null) {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                        new FileOutputStream(detail), "UTF-8"));
+            out.println(DETAIL_HEADER);
+            out.close();
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                    output == null ? System.out : new FileOutputStream(output),
+                    "UTF-8"));
+        try {
+            out.println(HEADER);
+            out.flush();
+            for (File instanceDir : instanceDirs) {
+                String row = doFork ? replay.fork(instanceDir) : replay
+                        .runCore(instanceDir, queries);
+                out.println(row);
+                out.flush();
+            }
+        } finally {
+            out.close();
+        }
+        // Solr のスレッドが残ることがある
+        System.exit(0);
+    }
+}
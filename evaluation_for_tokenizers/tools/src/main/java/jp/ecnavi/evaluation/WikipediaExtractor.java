@@ -0,0 +1,345 @@
+package jp.ecnavi.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * Wikipedia のダンプ (pages-articles.xml) から, script/wikipedia_xml_parse.pl と
+ * 同じ形式の TSV (id, title, text) を作る.
+ *
+ * StAX で読むので, 要素の内容以外を溜め込まずに一定のメモリで処理できる.
+ * XML の解析と書き出しは別のスレッドで行ない, 長さに上限のあるキューでつなぐ.
+ * 入力のファイル名が .bz2 で終わる場合は展開しながら読む.
+ *
+ * <pre>
+ * java -cp target/evaluation-tools.jar jp.ecnavi.evaluation.WikipediaExtractor \
+ *     [-o jawiki.tsv] jawiki-latest-pages-articles.xml.bz2
+ * </pre>
+ *
+ * -o を省略すると標準出力に書く. 出力は wikipedia_xml_parse.pl と同じく,
+ * 見出し行の後に page 要素ごとに1行で, id は 0 から振る.
+ * title 要素と text 要素の内容はタブ, 改行を空白に置き換える.
+ */
+public final class WikipediaExtractor {
+    /**
+     * 解析スレッドと書き出しスレッドの間のキューの長さ(ページ数).
+     */
+    private static final int QUEUE_SIZE = 1024;
+    /**
+     * 入出力のバッファの大きさ.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * 進捗を表示するページ数の間隔.
+     */
+    private static final int PROGRESS_INTERVAL = 100000;
+    /**
+     * 出力の終わりを示す値. 同一性で比較する.
+     */
+    private static final String END = new String();
+
+    /**
+     * 出力する要素の名前.
+     */
+    private static final String[] OUTPUT_ELEMENTS = {"title", "text"};
+    /**
+     * 1行にまとめる要素の名前.
+     */
+    private static final String PAGE_ELEMENT = "page";
+    /**
+     * 1行の列の数. 足りない場合は空の列を加える.
+     */
+    private static final int COLUMNS = 3;
+
+    /**
+     * ユーティリティクラスなのでコンストラクタは隠す.
+     */
+    private WikipediaExtractor() {
+    }
+
+    /**
+     * 書き出しスレッド.
+     */
+    private static final class LineWriter implements Callable<Long> {
+        /**
+         * 行のキュー.
+         */
+        private final BlockingQueue<String> queue;
+        /**
+         * 出力先.
+         */
+        private final Writer out;
+
+        /**
+         * コンストラクタ.
+         *
+         * @param queue 行のキュー
+         * @param out 出力先
+         */
+        private LineWriter(final BlockingQueue<String> queue, final Writer out) {
+            this.queue = queue;
+            this.out = out;
+        }
+
+        /**
+         * 出力の終わりまで行を書き出す.
+         *
+         * @return 書き出した行数
+         * @throws Exception 書き出し中の例外
+         */
+        public Long call() throws Exception {
+            long lines = 0;
+            while (true) {
+                String line = queue.take();
+                if (line == END) {
+                    out.flush();
+                    return lines;
+                }
+                out.write(line);
+                out.write('\n');
+                ++lines;
+            }
+        }
+    }
+
+    /**
+     * 入力を開く. .bz2 で終わる場合は展開する.
+     *
+     * @param file 入力ファイル
+     * @return 入力
+     * @throws IOException I/O例外
+     */
+    private static InputStream open(final String file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file),
+                BUFFER_SIZE);
+        if (file.endsWith(".bz2")) {
+            // 複数のストリームを連結したダンプもある
+            in = new BufferedInputStream(new BZip2CompressorInputStream(in,
+                        true), BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * XMLInputFactory を作る. JDK の実装には実体参照の展開量の上限があり,
+     * ダンプ全体を読むとこれを超えるので, 設定できる場合は外しておく.
+     *
+     * @return XMLInputFactory
+     */
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                Boolean.FALSE);
+        for (String name : new String[] {
+                "http://www.oracle.com/xml/jaxp/properties/totalEntitySizeLimit",
+                "http://www.oracle.com/xml/jaxp/properties/maxGeneralEntitySizeLimit"}) {
+            try {
+                factory.setProperty(name, "0");
+            } catch (IllegalArgumentException e) {
+                // この実装には上限がない
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * 要素の名前が出力する要素かどうか.
+     *
+     * @param name 要素の名前
+     * @return 出力する要素ならtrue
+     */
+    private static boolean isOutputElement(final String name) {
+        for (String element : OUTPUT_ELEMENTS) {
+            if (element.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 文字を, タブと改行を空白に置き換えながら追加する.
+     *
+     * @param sb 追加先
+     * @param chars 文字の配列
+     * @param start 開始位置
+     * @param length 文字数
+     */
+    private static void appendText(final StringBuilder sb, final char[] chars,
+            final int start, final int length) {
+        int end = start + length;
+        for (int i = start; i < end; ++i) {
+            char c = chars[i];
+            if (c == '\t' || c == '\r' || c == '\n') {
+                c = ' ';
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * ダンプを解析し, page 要素ごとの行をキューに入れる.
+     *
+     * @param in 入力
+     * @param queue 行のキュー
+     * @param writer 書き出しスレッド
+     * @return ページ数
+     * @throws Exception 解析中の例外, 書き出しスレッドの例外
+     */
+    private static long parse(final InputStream in,
+            final BlockingQueue<String> queue, final Future<Long> writer)
+        throws Exception {
+        XMLStreamReader reader = newFactory().createXMLStreamReader(in);
+        StringBuilder line = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        boolean doOutput = false;
+        long id = 0;
+        int columns = 1;
+        line.append(id);
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (isOutputElement(reader.getLocalName())) {
+                        doOutput = true;
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (doOutput) {
+                        appendText(text, reader.getTextCharacters(),
+                                reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    String name = reader.getLocalName();
+                    if (isOutputElement(name)) {
+                        line.append('\t').append(text);
+                        ++columns;
+                        text.setLength(0);
+                        doOutput = false;
+                    } else if (PAGE_ELEMENT.equals(name)) {
+                        for (; columns < COLUMNS; ++columns) {
+                            line.append('\t');
+                        }
+                        put(queue, line.toString(), writer);
+                        line.setLength(0);
+                        line.append(++id);
+                        columns = 1;
+                        if (id % PROGRESS_INTERVAL == 0) {
+                            System.err.println("pages: " + id);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return id;
+    }
+
+    /**
+     * キューに行を入れる. 書き出しスレッドが例外で終わっている場合は止める.
+     *
+     * @param queue キュー
+     * @param line 行
+     * @param writer 書き出しスレッド
+     * @throws Exception 書き出しスレッドの例外
+     */
+    private static void put(final BlockingQueue<String> queue,
+            final String line, final Future<Long> writer) throws Exception {
+        while (!queue.offer(line, 1, TimeUnit.SECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("writer stopped");
+            }
+        }
+    }
+
+    /**
+     * 使い方を表示して終了する.
+     */
+    private static void usage() {
+        System.err.println("usage: WikipediaExtractor [-o output.tsv]"
+                + " pages-articles.xml[.bz2]");
+        System.exit(1);
+    }
+
+    /**
+     * メイン.
+     *
+     * @param args 引数
+     * @throws Exception 処理中の例外
+     */
+    public static void main(final String[] args) throws Exception {
+        String output = null;
+        String file = null;
+        for (int i = 0; i < args.length; ++i) {
+            if (i + 1 < args.length && args[i].equals("-o")) {
+                output = args[++i];
+            } else if (file == null && !args[i].startsWith("-")) {
+                file = args[i];
+            } else {
+                usage();
+            }
+        }
+        if (file == null) {
+            usage();
+        }
+
+        OutputStream os = output == null ? System.out : new FileOutputStream(
+                output);
+        Writer out = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"),
+                BUFFER_SIZE);
+        BlockingQueue<String> queue = new ArrayBlockingQueue<String>(QUEUE_SIZE);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        InputStream in = open(file);
+        long start = System.currentTimeMillis();
+        try {
+            Future<Long> writer = executor.submit(new LineWriter(queue, out));
+            put(queue, "id\ttitle\ttext", writer);
+            long pages = parse(in, queue, writer);
+            put(queue, END, writer);
+            try {
+                writer.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            System.err.println("pages: " + pages + ", seconds: "
+                    + (System.currentTimeMillis() - start) / 1000.0);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(file + ": " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+            in.close();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package jp.ecnavi.benchmark;
+
+import java.util.Random;
+
+/**
+ * 計測に使う固定のコーパス.
+ * 語彙から固定の seed の乱数で文書を組み立てるので, 毎回同じ文書になる.
+ */
+public enum Corpus {
+    /**
+     * ASCII文字だけの英文.
+     */
+    ASCII(new String[] {"the", "quick", "brown", "fox", "jumps", "over",
+            "lazy", "dog", "search", "engine", "index", "query", "solr",
+            "lucene", "tokenizer", "2011", "100", "C++", "C#", "e-mail",
+            "shipping", "free", "new", "model", "USB", "HDMI", "cable"},
+            new String[] {" ", " ", " ", ", ", ". ", "\n"}),
+    /**
+     * 漢字, ひらがな, カタカナの和文.
+     */
+    KANJI_KANA(new String[] {"検索", "エンジン", "の", "性能", "を", "評価",
+            "する", "ために", "日本語", "文書", "索引", "作成", "は", "時間",
+            "が", "かかる", "東京都", "千代田区", "ポイント", "サイト", "会員",
+            "登録", "キャンペーン", "実施中", "です", "ます", "ヴァイオリン",
+            "ぁぃぅぇぉ", "ー"},
+            new String[] {"", "", "", "、", "。", "「", "」", "\n"}),
+    /**
+     * いわゆる半角カナが多い文書. 濁点, 半濁点の結合が多く起きる.
+     */
+    HANKAKU_KANA(new String[] {"ｶﾞｲﾄﾞﾌﾞｯｸ", "ﾊﾟｿｺﾝ", "ﾃﾞｼﾞﾀﾙｶﾒﾗ", "ﾎﾟｲﾝﾄ",
+            "ｷｬﾝﾍﾟｰﾝ", "ﾌﾟﾚｾﾞﾝﾄ", "ｼｮｯﾋﾟﾝｸﾞ", "ｳﾞｨﾝﾃｰｼﾞ", "ﾍﾞｰｼｯｸ", "ｻｲｽﾞ",
+            "ｶﾗｰ", "ﾌﾞﾗｯｸ", "ﾎﾜｲﾄ", "送料無料", "在庫あり", "ｾｰﾙ"},
+            new String[] {"", " ", "･", "｡", "､", "\n"}),
+    /**
+     * ハイフンでつながった型番が多い文書.
+     */
+    HYPHEN(new String[] {"KX-PW100-B", "SH-03C", "DSC-WX1", "ABC-123-XYZ-9",
+            "F-02C", "HDR-CX-550V", "A-B-C-D-E-F", "PC-LL750-CS", "EOS-5D",
+            "TH-P42-G2", "x-y", "N-04B", "iPhone-4", "LAN-GTJ-U3", "1-2-3"},
+            new String[] {" ", " ", " / ", ", ", "\n"}),
+    /**
+     * 商品説明のように全ての種類が混ざった文書.
+     */
+    MIXED(new String[] {"【送料無料】", "ﾃﾞｼﾞﾀﾙｶﾒﾗ", "DSC-WX1", "ブラック",
+            "1,980円", "ポイント10倍", "SDHC", "カード", "対応", "ｶﾞｲﾄﾞﾌﾞｯｸ付き",
+            "USB2.0", "HDMI", "ケーブル", "3m", "Wi-Fi", "無線LAN", "ルーター",
+            "★☆", "限定", "セット", "e-mail", "問い合わせ", "ＡＢＣ", "１２３",
+            "KX-PW100-B", "ヴィンテージ", "ﾌﾟﾚｾﾞﾝﾄ", "C++", "〜"},
+            new String[] {"", " ", " ", "、", "。", "／", "\n"});
+
+    /**
+     * 文書数.
+     */
+    private static final int DOCUMENTS = 64;
+    /**
+     * 1文書のおおよその文字数.
+     */
+    private static final int DOCUMENT_LENGTH = 4096;
+    /**
+     * 乱数の seed.
+     */
+    private static final long SEED = 20110401L;
+
+    /**
+     * 語彙.
+     */
+    private final String[] words;
+    /**
+     * 語の区切り.
+     */
+    private final String[] separators;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param words 語彙
+     * @param separators 語の区切り
+     */
+    private Corpus(final String[] words, final String[] separators) {
+        this.words = words;
+        this.separators = separators;
+    }
+
+    /**
+     * 文書を生成する.
+     *
+     * @return 文書の配列
+     */
+    public String[] documents() {
+        Random random = new Random(SEED + ordinal());
+        String[] documents = new String[DOCUMENTS];
+        StringBuilder sb = new StringBuilder(DOCUMENT_LENGTH + 64);
+        for (int i = 0; i < DOCUMENTS; ++i) {
+            sb.setLength(0);
+            while (sb.length() < DOCUMENT_LENGTH) {
+                sb.append(words[random.nextInt(words.length)]);
+                sb.append(separators[random.nextInt(separators.length)]);
+            }
+            documents[i] = sb.toString();
+        }
+        return documents;
+    }
+}
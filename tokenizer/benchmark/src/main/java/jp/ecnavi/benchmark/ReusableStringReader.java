@@ -0,0 +1,71 @@
+package jp.ecnavi.benchmark;
+
+import java.io.Reader;
+
+/**
+ * 文字列を読む, 使い回せる Reader.
+ * 文書ごとに StringReader を作ると計測に Reader の確保が混ざるので, これを使う.
+ */
+final class ReusableStringReader extends Reader {
+    /**
+     * 読む文字列.
+     */
+    private String s;
+    /**
+     * 次に読む位置.
+     */
+    private int pos;
+    /**
+     * 読む範囲の終端.
+     */
+    private int limit;
+
+    /**
+     * 読む文字列を変えて先頭に戻す.
+     *
+     * @param text 読む文字列
+     * @return this
+     */
+    ReusableStringReader setText(final String text) {
+        return setText(text, 0, text.length());
+    }
+
+    /**
+     * 読む文字列を文字列の一部に変える. 部分文字列を作らずに済む.
+     *
+     * @param text 文字列
+     * @param start 読む範囲の開始位置
+     * @param end 読む範囲の終了位置
+     * @return this
+     */
+    ReusableStringReader setText(final String text, final int start,
+            final int end) {
+        s = text;
+        pos = start;
+        limit = end;
+        return this;
+    }
+
+    @Override
+    public int read() {
+        if (pos < limit) {
+            return s.charAt(pos++);
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) {
+        if (pos >= limit) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        s.getChars(pos, pos + n, cbuf, off);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+    }
+}
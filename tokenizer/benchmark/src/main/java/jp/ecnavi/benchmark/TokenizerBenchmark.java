@@ -0,0 +1,152 @@
+package jp.ecnavi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tokenizer の処理性能の計測.
+ *
+ * 1回の操作でコーパスの全文書を Tokenizer に通す. 結果の補助カウンタ
+ * tokens は Token数/秒, bytes は入力のUTF-8でのバイト数/秒 (1e6 で割ると MB/秒) になる.
+ * 確保量は -prof gc で gc.alloc.rate.norm (1回の操作あたりのバイト数) を見る.
+ *
+ * Tokenizer は TokenizerSource で用意するので, pom.xml の profile で選んだ
+ * どの版でも同じように計測できる.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -prof gc
+ * java -jar target/benchmarks.jar -p tokenizer=ECNaviTokenizer -p corpus=MIXED
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+    /**
+     * 計測する Tokenizer のクラス名. ECNaviNGTokenizer は solr14 の版にはない.
+     */
+    @Param({"ECNaviTokenizer", "ECNaviNGTokenizer"})
+    public String tokenizer;
+
+    /**
+     * 計測に使うコーパス.
+     */
+    @Param
+    public Corpus corpus;
+
+    /**
+     * コーパスの文書.
+     */
+    private String[] documents;
+    /**
+     * コーパスのUTF-8でのバイト数.
+     */
+    private long bytes;
+    /**
+     * 使い回す Reader.
+     */
+    private final ReusableStringReader reader = new ReusableStringReader();
+    /**
+     * Tokenizer を用意する.
+     */
+    private TokenizerSource source;
+
+    /**
+     * Token数とバイト数の補助カウンタ. 秒あたりの値として出力される.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        /**
+         * 切り出した Token数.
+         */
+        public long tokens;
+        /**
+         * 入力のUTF-8でのバイト数.
+         */
+        public long bytes;
+
+        /**
+         * iteration ごとに数え直す.
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    /**
+     * コーパスと Tokenizer を用意する.
+     *
+     * @throws IOException 文字コードの例外
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        documents = corpus.documents();
+        bytes = 0;
+        for (String document : documents) {
+            bytes += document.getBytes("UTF-8").length;
+        }
+        source = new TokenizerSource(tokenizer);
+    }
+
+    /**
+     * コーパスの全文書から Token を切り出す.
+     *
+     * @param counters 補助カウンタ
+     * @return 最後のオフセットの和. 結果を捨てさせないために返す
+     * @throws IOException I/O例外
+     */
+    @Benchmark
+    public long tokenize(final Counters counters) throws IOException {
+        long tokens = 0;
+        long sum = 0;
+        for (String document : documents) {
+            Tokenizer t = source.open(reader.setText(document));
+            OffsetAttribute offsetAtt = (OffsetAttribute) t
+                    .addAttribute(OffsetAttribute.class);
+            tokens += consume(t);
+            sum += offsetAtt.endOffset();
+        }
+        counters.tokens += tokens;
+        counters.bytes += bytes;
+        return sum;
+    }
+
+    /**
+     * 索引時と同じように Token を最後まで読む.
+     *
+     * @param t Tokenizer
+     * @return Token数
+     * @throws IOException I/O例外
+     */
+    private static long consume(final Tokenizer t) throws IOException {
+        long tokens = 0;
+        while (t.incrementToken()) {
+            ++tokens;
+        }
+        t.end();
+        t.close();
+        return tokens;
+    }
+}
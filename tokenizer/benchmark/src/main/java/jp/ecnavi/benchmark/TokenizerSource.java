@@ -0,0 +1,93 @@
+package jp.ecnavi.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.lucene.analysis.Tokenizer;
+
+/**
+ * クラス名で指定した Tokenizer を文書ごとに用意する.
+ *
+ * Lucene 2.9 と 3.1 に共通の API だけで扱うので, pom.xml の profile で選んだ
+ * どの版の ecnavi-tokenizer でも使える. reset(Reader) を実装している Tokenizer は
+ * Solr と同じように使い回し, 実装していない版 (solr13) では文書ごとに生成する.
+ * スレッドセーフではない. スレッドごとに生成すること.
+ */
+final class TokenizerSource {
+    /**
+     * Tokenizer のパッケージ名.
+     */
+    private static final String PACKAGE = "jp.ecnavi.lucene.analysis.";
+
+    /**
+     * Tokenizer のコンストラクタ.
+     */
+    private final Constructor<? extends Tokenizer> constructor;
+    /**
+     * 使い回せるかどうか.
+     */
+    private final boolean reusable;
+    /**
+     * 使い回している Tokenizer.
+     */
+    private Tokenizer reused;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param name Tokenizer のクラス名. パッケージ名は省略できる
+     * @throws IllegalArgumentException この版にないクラスの場合
+     */
+    TokenizerSource(final String name) {
+        String className = name.indexOf('.') < 0 ? PACKAGE + name : name;
+        try {
+            Class<? extends Tokenizer> c = Class.forName(className).asSubclass(
+                    Tokenizer.class);
+            constructor = c.getConstructor(Reader.class);
+            reusable = c.getMethod("reset", Reader.class).getDeclaringClass() != Tokenizer.class;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(name
+                    + " is not in this version of ecnavi-tokenizer", e);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(name
+                    + " has no constructor(Reader)", e);
+        }
+    }
+
+    /**
+     * Tokenizer が使い回されるかどうか.
+     *
+     * @return 使い回されるならtrue
+     */
+    boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * reader を読む Tokenizer を返す. 使い回せる場合は前回と同じインスタンスを返す.
+     *
+     * @param reader 文書を読む Reader
+     * @return Tokenizer
+     * @throws IOException I/O例外
+     */
+    Tokenizer open(final Reader reader) throws IOException {
+        if (reused != null) {
+            reused.reset(reader);
+            return reused;
+        }
+        Tokenizer tokenizer;
+        try {
+            tokenizer = constructor.newInstance(reader);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (reusable) {
+            reused = tokenizer;
+        }
+        return tokenizer;
+    }
+}
@@ -0,0 +1,449 @@
+package jp.ecnavi.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * evaluation_for_tokenizers/script/wikipedia_xml_parse.pl が出力する
+ * jawiki.tsv (id, title, text) を Tokenizer に通し, 処理性能を計測する.
+ *
+ * Solr への投入 (/update/csv) を time で計ると HTTP, CSV の解析, commit の時間が
+ * 混ざるので, Tokenizer だけの処理性能を見るために使う.
+ * 読み込みスレッドが TSV を読み, 複数の処理スレッドが title と text をそれぞれ
+ * Tokenizer に通す. スレッド数ごとに MB/秒 (入力のUTF-8で) と Token数/秒,
+ * 1スレッドに対する速度比, 処理スレッドが入力を待った時間の割合を出力し,
+ * 最後に Token の種類ごとの数を出力する. 入力待ちの割合が大きい場合は
+ * 読み込みの方が律速している.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar jp.ecnavi.benchmark.TsvThroughput \
+ *     [-tokenizer ECNaviNGTokenizer] [-threads 1,2,4] [-limit 文書数] \
+ *     [-warmup 文書数] jawiki.tsv
+ * </pre>
+ *
+ * -threads を省略すると 1 から CPU数まで倍々にスレッド数を増やす.
+ */
+public final class TsvThroughput {
+    /**
+     * 読み込みスレッドから処理スレッドに一度に渡す行数.
+     */
+    private static final int BATCH_SIZE = 128;
+    /**
+     * 処理スレッド1つあたりのキューの長さ.
+     */
+    private static final int QUEUE_PER_THREAD = 4;
+    /**
+     * 入力の終わりを示すバッチ.
+     */
+    private static final List<String> END = Collections.emptyList();
+
+    /**
+     * Tokenizer のクラス名.
+     */
+    private final String tokenizerName;
+    /**
+     * 入力ファイル.
+     */
+    private final String file;
+    /**
+     * 処理する最大の文書数. 負なら全て.
+     */
+    private final long limit;
+
+    /**
+     * 処理スレッドごとの集計.
+     */
+    private static final class Stats {
+        /**
+         * 文書数.
+         */
+        private long documents;
+        /**
+         * 入力のUTF-8でのバイト数.
+         */
+        private long bytes;
+        /**
+         * Token数.
+         */
+        private long tokens;
+        /**
+         * 入力を待った時間(ナノ秒).
+         */
+        private long waitNanos;
+        /**
+         * Tokenの種類ごとの数.
+         */
+        private final Map<String, long[]> types = new HashMap<String, long[]>();
+
+        /**
+         * 集計を加える.
+         *
+         * @param other 加える集計
+         */
+        private void add(final Stats other) {
+            documents += other.documents;
+            bytes += other.bytes;
+            tokens += other.tokens;
+            waitNanos += other.waitNanos;
+            for (Map.Entry<String, long[]> e : other.types.entrySet()) {
+                long[] count = types.get(e.getKey());
+                if (count == null) {
+                    types.put(e.getKey(), e.getValue().clone());
+                } else {
+                    count[0] += e.getValue()[0];
+                }
+            }
+        }
+    }
+
+    /**
+     * 処理スレッド.
+     */
+    private final class Worker implements Callable<Stats> {
+        /**
+         * 行のキュー.
+         */
+        private final BlockingQueue<List<String>> queue;
+        /**
+         * Tokenizer を用意する.
+         */
+        private final TokenizerSource source = new TokenizerSource(tokenizerName);
+        /**
+         * 使い回す Reader.
+         */
+        private final ReusableStringReader reader = new ReusableStringReader();
+        /**
+         * 集計.
+         */
+        private final Stats stats = new Stats();
+        /**
+         * 直前の Token の種類. Token ごとに Map を引かないためのもの.
+         */
+        private String lastType;
+        /**
+         * 直前の Token の種類の数.
+         */
+        private long[] lastCount;
+
+        /**
+         * コンストラクタ.
+         *
+         * @param queue 行のキュー
+         */
+        private Worker(final BlockingQueue<List<String>> queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * 入力の終わりまで行を処理する.
+         *
+         * @return 集計
+         * @throws Exception 処理中の例外
+         */
+        public Stats call() throws Exception {
+            while (true) {
+                List<String> batch = queue.poll();
+                if (batch == null) {
+                    long start = System.nanoTime();
+                    batch = queue.take();
+                    stats.waitNanos += System.nanoTime() - start;
+                }
+                if (batch == END) {
+                    return stats;
+                }
+                for (String line : batch) {
+                    processLine(line);
+                }
+            }
+        }
+
+        /**
+         * 1行を処理する. id は読み飛ばし, title と text をそれぞれ Tokenizer に通す.
+         *
+         * @param line 行
+         * @throws IOException I/O例外
+         */
+        private void processLine(final String line) throws IOException {
+            int titleStart = line.indexOf('\t') + 1;
+            if (titleStart == 0) {
+                return;
+            }
+            int textStart = line.indexOf('\t', titleStart) + 1;
+            if (textStart == 0) {
+                tokenize(line, titleStart, line.length());
+            } else {
+                tokenize(line, titleStart, textStart - 1);
+                tokenize(line, textStart, line.length());
+            }
+            ++stats.documents;
+        }
+
+        /**
+         * 文字列の範囲を Tokenizer に通す.
+         *
+         * @param line 文字列
+         * @param start 範囲の開始位置
+         * @param end 範囲の終了位置
+         * @throws IOException I/O例外
+         */
+        private void tokenize(final String line, final int start, final int end)
+            throws IOException {
+            Tokenizer t = source.open(reader.setText(line, start, end));
+            TypeAttribute typeAtt = (TypeAttribute) t
+                    .addAttribute(TypeAttribute.class);
+            long tokens = 0;
+            while (t.incrementToken()) {
+                ++tokens;
+                String type = typeAtt.type();
+                if (type != lastType) {
+                    lastType = type;
+                    lastCount = stats.types.get(type);
+                    if (lastCount == null) {
+                        lastCount = new long[1];
+                        stats.types.put(type, lastCount);
+                    }
+                }
+                ++lastCount[0];
+            }
+            t.end();
+            t.close();
+            stats.tokens += tokens;
+            stats.bytes += utf8Length(line, start, end);
+        }
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param tokenizerName Tokenizer のクラス名
+     * @param file 入力ファイル
+     * @param limit 処理する最大の文書数. 負なら全て
+     */
+    private TsvThroughput(final String tokenizerName, final String file,
+            final long limit) {
+        this.tokenizerName = tokenizerName;
+        this.file = file;
+        this.limit = limit;
+    }
+
+    /**
+     * 文字列の範囲のUTF-8でのバイト数を返す.
+     *
+     * @param s 文字列
+     * @param start 範囲の開始位置
+     * @param end 範囲の終了位置
+     * @return バイト数
+     */
+    static long utf8Length(final String s, final int start, final int end) {
+        long n = 0;
+        for (int i = start; i < end; ++i) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                n += 1;
+            } else if (c < 0x800 || (c >= Character.MIN_SURROGATE
+                    && c <= Character.MAX_SURROGATE)) {
+                // サロゲートペアは2文字で4バイト
+                n += 2;
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 指定したスレッド数で入力を処理する.
+     *
+     * @param threads 処理スレッド数
+     * @param maxDocuments 処理する最大の文書数. 負なら全て
+     * @return 全スレッドの集計
+     * @throws Exception 処理中の例外
+     */
+    private Stats run(final int threads, final long maxDocuments)
+        throws Exception {
+        BlockingQueue<List<String>> queue = new ArrayBlockingQueue<List<String>>(
+                threads * QUEUE_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Stats>> futures = new ArrayList<Future<Stats>>();
+        try {
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(new Worker(queue)));
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(file), "UTF-8"), 1 << 16);
+            try {
+                String line = in.readLine();
+                if (line != null && !line.startsWith("id\t")) {
+                    // 見出し行がない場合
+                    put(queue, Collections.singletonList(line), futures);
+                }
+                long documents = 0;
+                List<String> batch = new ArrayList<String>(BATCH_SIZE);
+                while ((maxDocuments < 0 || documents < maxDocuments)
+                        && (line = in.readLine()) != null) {
+                    batch.add(line);
+                    ++documents;
+                    if (batch.size() == BATCH_SIZE) {
+                        put(queue, batch, futures);
+                        batch = new ArrayList<String>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    put(queue, batch, futures);
+                }
+            } finally {
+                in.close();
+            }
+            // 処理スレッドが例外で終わっていると誰もキューを空けないので,
+            // 終わりも put() で入れる. 例外で抜けた場合は shutdownNow() で止める
+            for (int i = 0; i < threads; ++i) {
+                put(queue, END, futures);
+            }
+            Stats total = new Stats();
+            for (Future<Stats> future : futures) {
+                try {
+                    total.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * キューにバッチを入れる. 処理スレッドが例外で終わっている場合は止める.
+     *
+     * @param queue キュー
+     * @param batch バッチ
+     * @param futures 処理スレッド
+     * @throws Exception 処理スレッドの例外
+     */
+    private static void put(final BlockingQueue<List<String>> queue,
+            final List<String> batch, final List<Future<Stats>> futures)
+        throws Exception {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            for (Future<Stats> future : futures) {
+                if (future.isDone()) {
+                    future.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * 既定のスレッド数の列. 1 から CPU数まで倍々にする.
+     *
+     * @return スレッド数の列
+     */
+    private static List<Integer> defaultThreads() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threads = new ArrayList<Integer>();
+        for (int n = 1; n < cores; n *= 2) {
+            threads.add(n);
+        }
+        threads.add(cores);
+        return threads;
+    }
+
+    /**
+     * 使い方を表示して終了する.
+     */
+    private static void usage() {
+        System.err.println("usage: TsvThroughput [-tokenizer name]"
+                + " [-threads 1,2,4] [-limit documents] [-warmup documents]"
+                + " jawiki.tsv");
+        System.exit(1);
+    }
+
+    /**
+     * メイン.
+     *
+     * @param args 引数
+     * @throws Exception 処理中の例外
+     */
+    public static void main(final String[] args) throws Exception {
+        String tokenizerName = "ECNaviTokenizer";
+        List<Integer> threads = defaultThreads();
+        long limit = -1;
+        long warmup = 10000;
+        String file = null;
+        for (int i = 0; i < args.length; ++i) {
+            if (i + 1 < args.length && args[i].equals("-tokenizer")) {
+                tokenizerName = args[++i];
+            } else if (i + 1 < args.length && args[i].equals("-threads")) {
+                threads = new ArrayList<Integer>();
+                for (String n : args[++i].split(",")) {
+                    threads.add(Integer.valueOf(n.trim()));
+                }
+            } else if (i + 1 < args.length && args[i].equals("-limit")) {
+                limit = Long.parseLong(args[++i]);
+            } else if (i + 1 < args.length && args[i].equals("-warmup")) {
+                warmup = Long.parseLong(args[++i]);
+            } else if (file == null && !args[i].startsWith("-")) {
+                file = args[i];
+            } else {
+                usage();
+            }
+        }
+        if (file == null) {
+            usage();
+        }
+
+        TsvThroughput tool = new TsvThroughput(tokenizerName, file, limit);
+        int maxThreads = Collections.max(threads);
+        if (warmup > 0) {
+            // JIT コンパイルを済ませておく
+            tool.run(maxThreads, limit < 0 ? warmup : Math.min(warmup, limit));
+        }
+
+        System.out.println("# " + tokenizerName + " " + file);
+        System.out.println("threads\tdocuments\tseconds\tMB/s\ttokens/s\tspeedup\twait%");
+        double baseRate = 0;
+        Stats last = null;
+        for (int n : threads) {
+            long start = System.nanoTime();
+            Stats stats = tool.run(n, limit);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double rate = stats.bytes / seconds;
+            if (baseRate == 0) {
+                baseRate = rate;
+            }
+            System.out.println(String.format("%d\t%d\t%.2f\t%.1f\t%.0f\t%.2f\t%.1f",
+                        n, stats.documents, seconds, rate / 1e6,
+                        stats.tokens / seconds, rate / baseRate,
+                        100.0 * stats.waitNanos / 1e9 / seconds / n));
+            last = stats;
+        }
+
+        System.out.println();
+        System.out.println("type\ttokens\tratio");
+        for (Map.Entry<String, long[]> e : new TreeMap<String, long[]>(
+                    last.types).entrySet()) {
+            long count = e.getValue()[0];
+            System.out.println(String.format("%s\t%d\t%.4f", e.getKey(), count,
+                        (double) count / last.tokens));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package jp.ecnavi.lucene.analysis;
+
+/**
+ * ECNaviTokenizer がかなカナ漢字などの連続から bi-gram を切り出す方法.
+ */
+public enum BigramMode {
+    /**
+     * 重なり合う全ての bi-gram を切り出す. 索引時はこちらを使う.
+     */
+    ALL,
+    /**
+     * 文字列を覆うのに必要な重ならない bi-gram だけを切り出す. 文字数が奇数の場合は
+     * 末尾の bi-gram を重ねて加える. 位置は ALL の場合と同じになるように
+     * positionIncrement を設定するので, ALL で索引したものに対するフレーズ検索の結果は変わらない.
+     * 検索時に使う.
+     */
+    MINIMAL;
+
+    /**
+     * 設定値の文字列から BigramMode を得る.
+     *
+     * @param value 設定値. "all" または "minimal". null の場合は ALL
+     * @return BigramMode
+     * @throws IllegalArgumentException 不明な値の場合
+     */
+    public static BigramMode parse(final String value) {
+        if (value == null || value.equalsIgnoreCase("all")) {
+            return ALL;
+        } else if (value.equalsIgnoreCase("minimal")) {
+            return MINIMAL;
+        }
+        throw new IllegalArgumentException("unknown bigramMode: " + value);
+    }
+}
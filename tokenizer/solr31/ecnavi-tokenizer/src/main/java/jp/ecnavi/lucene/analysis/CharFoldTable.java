@@ -0,0 +1,326 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文字の正規化を1回の表引きで行なうためのテーブル.
+ *
+ * tilde, waveの ー への変換, いわゆる全角英数記号の半角化, いわゆる半角カナの全角化,
+ * 英字の小文字化, かなカナの大文字化(capitalize_kana)をまとめて1文字から1文字への対応にする.
+ * いわゆる半角カナと濁点・半濁点の2文字の結合は別の表で引く.
+ *
+ * 1文字の対応は CharTypeTable と同じく共有ブロックによる2段の表で,
+ * 値は元の文字との差分で持つ. 変換されない文字のブロックは全て共有される.
+ */
+public final class CharFoldTable {
+    /**
+     * 半角->全角カナテープル.
+     */
+    private static final int[] KANA_TABLE = { 12530, 12449, 12451, 12453,
+        12455, 12457, 12515, 12517, 12519, 12483, 12540, 12450, 12452,
+        12454, 12456, 12458, 12459, 12461, 12463, 12465, 12467, 12469,
+        12471, 12473, 12475, 12477, 12479, 12481, 12484, 12486, 12488,
+        12490, 12491, 12492, 12493, 12494, 12495, 12498, 12501, 12504,
+        12507, 12510, 12511, 12512, 12513, 12514, 12516, 12518, 12520,
+        12521, 12522, 12523, 12524, 12525, 12527, 12531, 12443, 12444 };
+
+    /**
+     * いわゆる半角カナの先頭.
+     */
+    private static final int HANKAKU_KANA_FIRST = 65382;
+    /**
+     * いわゆる半角カナの末尾.
+     */
+    private static final int HANKAKU_KANA_LAST = 65439;
+
+    /**
+     * ブロックの大きさ(bit数).
+     */
+    private static final int BLOCK_SHIFT = 8;
+    /**
+     * ブロック内の位置を取り出すマスク.
+     */
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    /**
+     * 上位8bitからブロックの開始位置を引く表.
+     */
+    private final int[] index;
+    /**
+     * 共有されたブロックを連結した, 元の文字との差分の表.
+     */
+    private final char[] deltas;
+    /**
+     * いわゆる半角カナと濁点(偶数番目), 半濁点(奇数番目)を結合した文字の表.
+     * 結合できない組合せは 0.
+     */
+    private final char[] voiced;
+
+    /**
+     * インスタンスを生成し返す.
+     *
+     * @param charTypes 文字タイプのテーブル
+     * @param capitalizeKana かなカナを正規化(大文字化)するかどうか
+     * @return 新しいインスタンス
+     */
+    public static CharFoldTable getInstance(final CharTypeTable charTypes,
+            final boolean capitalizeKana) {
+        char[] flat = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; ++c) {
+            flat[c] = (char) (fold(c, charTypes.getType(c), capitalizeKana) - c);
+        }
+        return new CharFoldTable(flat);
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param flat 全てのBMPの文字の差分を並べた表
+     */
+    private CharFoldTable(final char[] flat) {
+        int blockSize = BLOCK_MASK + 1;
+        index = new int[flat.length >> BLOCK_SHIFT];
+        List<char[]> unique = new ArrayList<char[]>();
+        for (int b = 0; b < index.length; ++b) {
+            char[] block = Arrays.copyOfRange(flat, b << BLOCK_SHIFT,
+                    (b + 1) << BLOCK_SHIFT);
+            int found = -1;
+            for (int u = 0; u < unique.size(); ++u) {
+                if (Arrays.equals(unique.get(u), block)) {
+                    found = u;
+                    break;
+                }
+            }
+            if (found < 0) {
+                found = unique.size();
+                unique.add(block);
+            }
+            index[b] = found << BLOCK_SHIFT;
+        }
+        deltas = new char[unique.size() * blockSize];
+        for (int u = 0; u < unique.size(); ++u) {
+            System.arraycopy(unique.get(u), 0, deltas, u << BLOCK_SHIFT,
+                    blockSize);
+        }
+
+        voiced = new char[(HANKAKU_KANA_LAST - HANKAKU_KANA_FIRST + 1) * 2];
+        for (int c = HANKAKU_KANA_FIRST; c <= HANKAKU_KANA_LAST; ++c) {
+            int i = (c - HANKAKU_KANA_FIRST) * 2;
+            int d = mergeDakuten(c);
+            int h = mergeHandakuten(c);
+            voiced[i] = d == c ? 0 : (char) d;
+            voiced[i + 1] = h == c ? 0 : (char) h;
+        }
+    }
+
+    /**
+     * 1文字を正規化する.
+     *
+     * @param c 文字
+     * @return 正規化した文字
+     */
+    public int fold(final int c) {
+        return (char) (c + deltas[index[c >> BLOCK_SHIFT] + (c & BLOCK_MASK)]);
+    }
+
+    /**
+     * いわゆる半角カナかどうかを判定する. これらの文字だけが後続の濁点・半濁点と結合しうる.
+     *
+     * @param c 文字
+     * @return いわゆる半角カナならtrue
+     */
+    public static boolean isHankakuKana(final int c) {
+        return c >= HANKAKU_KANA_FIRST && c <= HANKAKU_KANA_LAST;
+    }
+
+    /**
+     * いわゆる半角カナと続く文字を結合する.
+     *
+     * @param c1 いわゆる半角カナ
+     * @param c2 続く文字. 入力の終わりを示す負の値も受け付ける
+     * @return 濁点・半濁点を付けた全角カナ文字. 結合できない場合は 0
+     */
+    public int compose(final int c1, final int c2) {
+        if (c2 == 'ﾞ') {
+            return voiced[(c1 - HANKAKU_KANA_FIRST) * 2];
+        } else if (c2 == 'ﾟ') {
+            return voiced[(c1 - HANKAKU_KANA_FIRST) * 2 + 1];
+        }
+        return 0;
+    }
+
+    /**
+     * 1文字の正規化を行なう. 従来 ECNaviTokenizer が1文字ごとに順に行なっていた変換と同じ.
+     *
+     * @param cp 文字
+     * @param charType 文字の文字タイプ
+     * @param capitalizeKana かなカナを正規化(大文字化)するかどうか
+     * @return 正規化した文字
+     */
+    private static int fold(final int cp, final int charType,
+            final boolean capitalizeKana) {
+        int c = cp;
+        // tilde, waveを ーに変更
+        if (c == '～' || c == '〜') {
+            c = 'ー';
+        } else if (c >= 65281 && c <= 65374) {
+            // いわゆる全角アルファベット
+            // unicodeで 'ａ'-'a' = 65248
+            c -= 65248;
+        }
+
+        if (charType == CharTypeTable.SINGLE) {
+            c = Character.toLowerCase(c);
+        } else if (charType == CharTypeTable.DOUBLE) {
+            if (isHankakuKana(c)) {
+                c = KANA_TABLE[c - HANKAKU_KANA_FIRST];
+            }
+            if (capitalizeKana) {
+                c = capitalizeKana(c);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * ひらがなカナカナの小文字を大文字にする. それ以外の文字はそのまま.
+     *
+     * @param c
+     *            文字
+     * @return かなカナを正規化した文字
+     */
+    private static int capitalizeKana(final int c) {
+        switch (c) {
+        case 'ぁ':
+            return 'あ';
+        case 'ぃ':
+            return 'い';
+        case 'ぅ':
+            return 'う';
+        case 'ぇ':
+            return 'え';
+        case 'ぉ':
+            return 'お';
+        case 'ゃ':
+            return 'や';
+        case 'ゅ':
+            return 'ゆ';
+        case 'ょ':
+            return 'よ';
+        case 'っ':
+            return 'つ';
+        case 'ァ':
+            return 'ア';
+        case 'ィ':
+            return 'イ';
+        case 'ゥ':
+            return 'ウ';
+        case 'ェ':
+            return 'エ';
+        case 'ォ':
+            return 'オ';
+        case 'ャ':
+            return 'ヤ';
+        case 'ュ':
+            return 'ユ';
+        case 'ョ':
+            return 'ヨ';
+        case 'ッ':
+            return 'ツ';
+        case 'ゎ':
+            return 'わ';
+        case 'ヮ':
+            return 'ワ';
+        case 'ヵ':
+            return 'カ';
+        case 'ヶ':
+            return 'ケ';
+        default:
+            return c;
+        }
+    }
+
+    /**
+     * 濁点が付けられるいわゆる半角カナ文字が入力として与えられた場合に対応する濁点を付けた全角カナ文字を返す. その他の入力はそのまま返す.
+     *
+     * @param c1
+     *            変換前の文字
+     * @return 変換後の文字
+     */
+    private static int mergeDakuten(final int c1) {
+
+        switch (c1) {
+        case 'ｶ':
+            return 'ガ';
+        case 'ｷ':
+            return 'ギ';
+        case 'ｸ':
+            return 'グ';
+        case 'ｹ':
+            return 'ゲ';
+        case 'ｺ':
+            return 'ゴ';
+        case 'ｻ':
+            return 'ザ';
+        case 'ｼ':
+            return 'ジ';
+        case 'ｽ':
+            return 'ズ';
+        case 'ｾ':
+            return 'ゼ';
+        case 'ｿ':
+            return 'ゾ';
+        case 'ﾀ':
+            return 'ダ';
+        case 'ﾁ':
+            return 'ヂ';
+        case 'ﾂ':
+            return 'ヅ';
+        case 'ﾃ':
+            return 'デ';
+        case 'ﾄ':
+            return 'ド';
+        case 'ﾊ':
+            return 'バ';
+        case 'ﾋ':
+            return 'ビ';
+        case 'ﾌ':
+            return 'ブ';
+        case 'ﾍ':
+            return 'ベ';
+        case 'ﾎ':
+            return 'ボ';
+        default:
+            return c1;
+        }
+
+    }
+
+    /**
+     * 半濁点が付けられるいわゆる半角カナ文字が入力として与えられた場合に対応する濁点を付けた全角カナ文字を返す. その他の入力はそのまま返す.
+     *
+     * @param c1
+     *            変換前の文字
+     * @return 変換後の文字
+     */
+    private static int mergeHandakuten(final int c1) {
+
+        switch (c1) {
+        case 'ﾊ':
+            return 'パ';
+        case 'ﾋ':
+            return 'ピ';
+        case 'ﾌ':
+            return 'プ';
+        case 'ﾍ':
+            return 'ペ';
+        case 'ﾎ':
+            return 'ポ';
+        default:
+            return c1;
+        }
+
+    }
+}
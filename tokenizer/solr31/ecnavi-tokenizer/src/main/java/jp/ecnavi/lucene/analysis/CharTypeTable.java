@@ -0,0 +1,163 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BMPの各文字を文字タイプに対応付けるテーブル.
+ * 上位8bitでブロックを, 下位8bitでブロック内の値を引く2段の表で,
+ * 内容が同じブロックは共有する.
+ *
+ * 記号のうちASCIIと同様に扱うもの(allowed_sign)と,
+ * 前後のかなカナ漢字を連結する文字(concat_char)は生成時に織り込む.
+ */
+public final class CharTypeTable {
+    /**
+     * 記号などの文字のタイプ.
+     */
+    public static final int SYMBOL = 0;
+    /**
+     * ASCIIなどの文字タイプ.
+     */
+    public static final int SINGLE = 1;
+    /**
+     * bi-gram対象の文字タイプ.
+     */
+    public static final int DOUBLE = 2;
+
+    /**
+     * 文字タイプを取り出すマスク.
+     */
+    private static final int TYPE_MASK = 3;
+    /**
+     * 連結文字であることを示すフラグ.
+     */
+    private static final int CONCAT = 4;
+
+    /**
+     * ブロックの大きさ(bit数).
+     */
+    private static final int BLOCK_SHIFT = 8;
+    /**
+     * ブロック内の位置を取り出すマスク.
+     */
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    /**
+     * 上位8bitからブロックの開始位置を引く表.
+     */
+    private final int[] index;
+    /**
+     * 共有されたブロックを連結した値の表.
+     */
+    private final byte[] blocks;
+
+    /**
+     * インスタンスを生成し返す.
+     *
+     * @param signTable 記号のうちASCIIと同列に扱うもののテーブル
+     * @param concatChars 前後のかなカナ漢字を連結する文字を連結した文字列
+     * @return 新しいインスタンス
+     */
+    public static CharTypeTable getInstance(final SignTable signTable,
+            final String concatChars) {
+        byte[] flat = new byte[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; ++c) {
+            flat[c] = (byte) classify(c, signTable);
+        }
+        if (concatChars != null) {
+            for (int i = 0; i < concatChars.length(); ++i) {
+                flat[concatChars.charAt(i)] |= CONCAT;
+            }
+        }
+        return new CharTypeTable(flat);
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param flat 全てのBMPの文字の値を並べた表
+     */
+    private CharTypeTable(final byte[] flat) {
+        int blockSize = BLOCK_MASK + 1;
+        index = new int[flat.length >> BLOCK_SHIFT];
+        List<byte[]> unique = new ArrayList<byte[]>();
+        for (int b = 0; b < index.length; ++b) {
+            byte[] block = Arrays.copyOfRange(flat, b << BLOCK_SHIFT,
+                    (b + 1) << BLOCK_SHIFT);
+            int found = -1;
+            for (int u = 0; u < unique.size(); ++u) {
+                if (Arrays.equals(unique.get(u), block)) {
+                    found = u;
+                    break;
+                }
+            }
+            if (found < 0) {
+                found = unique.size();
+                unique.add(block);
+            }
+            index[b] = found << BLOCK_SHIFT;
+        }
+        blocks = new byte[unique.size() * blockSize];
+        for (int u = 0; u < unique.size(); ++u) {
+            System.arraycopy(unique.get(u), 0, blocks, u << BLOCK_SHIFT,
+                    blockSize);
+        }
+    }
+
+    /**
+     * 文字タイプを判定する. 従来 ECNaviTokenizer が1文字ごとに行なっていた判定と同じ.
+     *
+     * @param cp 文字
+     * @param signTable 記号のうちASCIIと同列に扱うもののテーブル
+     * @return 文字タイプ
+     */
+    private static int classify(final int cp, final SignTable signTable) {
+        int c = cp;
+        // tilde, waveは ーとして扱う
+        if (c == '～' || c == '〜') {
+            c = 'ー';
+        }
+        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
+        if (ub == Character.UnicodeBlock.BASIC_LATIN
+                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS) {
+            // いわゆる全角アルファベット
+            if (c >= 65281 && c <= 65374) {
+                c -= 65248;
+            }
+            if (c >= 65382 && c <= 65439) {
+                // いわゆる半角カナ
+                return DOUBLE;
+            } else if (Character.isLetterOrDigit(c) || signTable.isSign(c)) {
+                return SINGLE;
+            }
+            return SYMBOL;
+        }
+        if (Character.isLetter(c)) {
+            return DOUBLE;
+        }
+        return SYMBOL;
+    }
+
+    /**
+     * 文字タイプを返す.
+     *
+     * @param c 文字
+     * @return 文字タイプ
+     */
+    public int getType(final int c) {
+        return blocks[index[c >> BLOCK_SHIFT] + (c & BLOCK_MASK)] & TYPE_MASK;
+    }
+
+    /**
+     * 前後のかなカナ漢字を連結する文字かどうかを判定する.
+     *
+     * @param c 文字. 入力の終わりを示す負の値も受け付ける
+     * @return 連結する文字ならtrue
+     */
+    public boolean isConcat(final int c) {
+        return c >= 0
+            && (blocks[index[c >> BLOCK_SHIFT] + (c & BLOCK_MASK)] & CONCAT) != 0;
+    }
+}
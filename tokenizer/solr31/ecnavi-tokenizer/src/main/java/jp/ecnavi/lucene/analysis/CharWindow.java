@@ -0,0 +1,158 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Readerからブロック単位で文字を読み込み, 1文字ずつ返すウィンドウ.
+ * PushbackReaderの代わりに, 先読みした文字の読み戻しをウィンドウ上の添字操作で行なう.
+ * 読み込み元には Reader の代わりに文字配列の範囲も使える. その場合もウィンドウに
+ * 写してから読むので, 読み戻しで呼び出し側の配列を書き換えることはない.
+ */
+final class CharWindow {
+    /**
+     * 一度にReaderから読み込む文字数.
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    /**
+     * 読み戻しのためにウィンドウの先頭に空けておく文字数.
+     * PushbackReaderのバッファ長と同じく, 連続して読み戻せるのは2文字まで.
+     */
+    private static final int PUSHBACK_SIZE = 2;
+
+    /**
+     * 読み込んだ文字を保持するウィンドウ. 先頭 PUSHBACK_SIZE 文字は読み戻し用の領域.
+     */
+    private final char[] window = new char[PUSHBACK_SIZE + BLOCK_SIZE];
+
+    /**
+     * 次に返す文字の位置.
+     */
+    private int position = PUSHBACK_SIZE;
+
+    /**
+     * ウィンドウ内の有効な文字の終端.
+     */
+    private int limit = PUSHBACK_SIZE;
+
+    /**
+     * 文字の読み込み元.
+     */
+    private Reader reader;
+
+    /**
+     * 文字の読み込み元の配列. Reader から読む場合は null.
+     */
+    private char[] text;
+
+    /**
+     * text の次に読み込む位置.
+     */
+    private int textPosition;
+
+    /**
+     * text の読み込む範囲の終端.
+     */
+    private int textLimit;
+
+    /**
+     * reset() から読み込み元から読み込んだ文字数.
+     */
+    private int loaded;
+
+    /**
+     * 読み込み元を設定し, ウィンドウを空にする.
+     *
+     * @param reader 読み込み元
+     */
+    void reset(final Reader reader) {
+        this.reader = reader;
+        text = null;
+        position = PUSHBACK_SIZE;
+        limit = PUSHBACK_SIZE;
+        loaded = 0;
+    }
+
+    /**
+     * 読み込み元を文字配列の範囲にし, ウィンドウを空にする.
+     *
+     * @param text 読み込み元の配列
+     * @param offset 範囲の開始位置
+     * @param length 範囲の文字数
+     */
+    void reset(final char[] text, final int offset, final int length) {
+        reader = null;
+        this.text = text;
+        textPosition = offset;
+        textLimit = offset + length;
+        position = PUSHBACK_SIZE;
+        limit = PUSHBACK_SIZE;
+        loaded = 0;
+    }
+
+    /**
+     * reset() から読み込み元から読み込んだ文字数を返す.
+     * 入力の終わりまで読んだ後は入力の文字数になる.
+     *
+     * @return 文字数
+     */
+    int getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 1文字読む.
+     *
+     * @return 読んだ文字. 入力の終わりでは -1
+     * @throws IOException I/O例外
+     */
+    int read() throws IOException {
+        if (position < limit || fill()) {
+            return window[position++];
+        }
+        return -1;
+    }
+
+    /**
+     * 文字を読み戻す. 次の read() は c を返す.
+     * 読み戻す文字は直前に読んだ文字を正規化したものでもよい.
+     *
+     * @param c 読み戻す文字
+     */
+    void unread(final int c) {
+        window[--position] = (char) c;
+    }
+
+    /**
+     * Readerから次のブロックを読み込む.
+     * 読み戻しは必ず文字を書き戻すので, 読み終えた文字を残しておく必要はない.
+     * 先頭の PUSHBACK_SIZE 文字分の領域を空けておけば足りる.
+     *
+     * @return 文字を読み込めたらtrue. 入力の終わりではfalse
+     * @throws IOException I/O例外
+     */
+    private boolean fill() throws IOException {
+        int n;
+        if (text != null) {
+            n = Math.min(BLOCK_SIZE, textLimit - textPosition);
+            if (n <= 0) {
+                return false;
+            }
+            System.arraycopy(text, textPosition, window, PUSHBACK_SIZE, n);
+            textPosition += n;
+        } else {
+            do {
+                n = reader.read(window, PUSHBACK_SIZE, BLOCK_SIZE);
+            } while (n == 0);
+        }
+        if (n < 0) {
+            // 入力の終わりでは位置を動かさず, 直前の文字を読み戻せるようにしておく.
+            return false;
+        }
+        position = PUSHBACK_SIZE;
+        limit = PUSHBACK_SIZE + n;
+        loaded += n;
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 語の一覧から ECNaviTokenizerFactory の dictionary 属性に指定する辞書を作る.
+ *
+ * 使い方: java jp.ecnavi.lucene.analysis.DictionaryCompiler [key=value ...] words.txt dict.dat
+ *
+ * words.txt は UTF-8 で1行に1語. タブかカンマより後ろ (品詞などの列) と,
+ * 空行と # で始まる行は無視する. key=value には Factory と同じ設定
+ * (capitalize_kana, concat_char など) を指定し, 索引時と同じ正規化で語を登録する.
+ * かなカナ漢字の bi-gram の1つの連続として切り出される3文字以上の語だけを登録する.
+ */
+public final class DictionaryCompiler {
+
+    /**
+     * コンストラクタ. インスタンスは作らない.
+     */
+    private DictionaryCompiler() {
+    }
+
+    /**
+     * 語を正規化する. 索引時と同じ設定で bi-gram に切り出し, 重なり合う bi-gram を
+     * つなぎ直す.
+     *
+     * @param segmenter bigramMode="all" の ECNaviSegmenter
+     * @param word 語
+     * @return 正規化した語. かなカナ漢字の bi-gram の1つの連続にならない場合は null
+     */
+    static String normalize(final ECNaviSegmenter segmenter, final String word) {
+        char[] text = word.toCharArray();
+        segmenter.reset(text, 0, text.length);
+        StringBuilder normalized = new StringBuilder();
+        int lastEnd = 0;
+        while (segmenter.next()) {
+            if (segmenter.getType() != ECNaviSegmenter.TYPE_DOUBLE
+                    || segmenter.getStartOffset() >= lastEnd
+                    && normalized.length() > 0
+                    || segmenter.getStartOffset() > 0
+                    && normalized.length() == 0) {
+                return null;
+            }
+            char[] term = segmenter.getTermBuffer();
+            int off = segmenter.getTermOffset();
+            if (normalized.length() == 0) {
+                normalized.append(term, off, 2);
+            } else {
+                normalized.append(term[off + 1]);
+            }
+            lastEnd = segmenter.getEndOffset();
+        }
+        if (lastEnd != text.length) {
+            return null;
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * 語の一覧を読み, 正規化した語の一覧を返す.
+     *
+     * @param file 語の一覧のファイル
+     * @param profile 設定
+     * @param rejected 登録できない語を加えるリスト
+     * @return 正規化した語の一覧
+     * @throws IOException I/O例外
+     */
+    static List<String> readWords(final File file,
+            final TokenizerProfile profile, final List<String> rejected)
+            throws IOException {
+        ECNaviSegmenter segmenter = new ECNaviSegmenter(profile);
+        List<String> words = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int end = line.length();
+                for (int i = 0; i < line.length(); ++i) {
+                    if (line.charAt(i) == '\t' || line.charAt(i) == ',') {
+                        end = i;
+                        break;
+                    }
+                }
+                String word = line.substring(0, end).trim();
+                if (word.length() == 0 || word.startsWith("#")) {
+                    continue;
+                }
+                String normalized = normalize(segmenter, word);
+                if (normalized == null
+                        || normalized.length() < DoubleArrayTrie.MIN_WORD_LENGTH
+                        || normalized.length() > DoubleArrayTrie.MAX_WORD_LENGTH) {
+                    rejected.add(word);
+                } else {
+                    words.add(normalized);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return words;
+    }
+
+    /**
+     * 辞書を作る.
+     *
+     * @param args [key=value ...] 語の一覧のファイル 書き出す辞書のファイル
+     * @throws IOException I/O例外
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: DictionaryCompiler [key=value ...]"
+                    + " words.txt dict.dat");
+            System.exit(1);
+        }
+        Map<String, String> settings = new HashMap<String, String>();
+        for (int i = 0; i < args.length - 2; ++i) {
+            int eq = args[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("not key=value: " + args[i]);
+            }
+            settings.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+        }
+        // 語の切り出しには辞書を使わず, 全ての bi-gram を切り出す
+        settings.remove(TokenizerProfile.DICTIONARY);
+        settings.put(TokenizerProfile.BIGRAM_MODE, "all");
+        TokenizerProfile profile = TokenizerProfile.getInstance(settings);
+
+        List<String> rejected = new ArrayList<String>();
+        List<String> words = readWords(new File(args[args.length - 2]),
+                profile, rejected);
+        for (String word : rejected) {
+            System.err.println("skipped: " + word);
+        }
+        DoubleArrayTrie trie = DoubleArrayTrie.build(words);
+        trie.write(new File(args[args.length - 1]));
+        System.err.println("words: " + trie.getWordCount() + ", skipped: "
+                + rejected.size() + ", max length: " + trie.getMaxLength());
+    }
+}
@@ -0,0 +1,471 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 辞書の語を引くための double-array trie.
+ *
+ * 語の文字は, 辞書に現れる文字だけに頻度順に 1 から振った番号に置き換えて遷移する.
+ * 状態 s から番号 c の文字で遷移した先は base[s] + c で, check[base[s] + c] == s の
+ * 場合に遷移できる. 語の終わりは番号 0 の遷移で表す. 番号が密なので,
+ * 配列の長さは語の総文字数程度に収まる.
+ *
+ * ファイルに書き出したものはメモリマップして引くので, 大きな辞書でもヒープを使わず,
+ * 同じファイルを使う Tokenizer の間でページキャッシュを共有する.
+ * 変更不可なので複数のスレッドから同時に引ける.
+ */
+public final class DoubleArrayTrie {
+    /**
+     * 辞書に入れる語の最小の文字数. 2文字の語は bi-gram と同じなので入れない.
+     */
+    public static final int MIN_WORD_LENGTH = 3;
+    /**
+     * 辞書に入れる語の最大の文字数. 切り出し時の先読みの文字数になる.
+     */
+    public static final int MAX_WORD_LENGTH = 32;
+
+    /**
+     * ファイルの先頭の値 ("ECDT").
+     */
+    private static final int MAGIC = 0x45434454;
+    /**
+     * ファイル形式の版.
+     */
+    private static final int VERSION = 1;
+    /**
+     * ヘッダ (MAGIC, VERSION, 最長の語の文字数, 語の数, 配列の長さ) のバイト数.
+     */
+    private static final int HEADER_SIZE = 20;
+    /**
+     * 文字の番号の表のバイト数.
+     */
+    private static final int CODES_SIZE = (Character.MAX_VALUE + 1) * 2;
+    /**
+     * 空きを示す check の値.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * ヘッダ, 文字の番号の表, base, check を並べたもの.
+     */
+    private final ByteBuffer data;
+    /**
+     * 最長の語の文字数.
+     */
+    private final int maxLength;
+    /**
+     * 語の数.
+     */
+    private final int wordCount;
+    /**
+     * base と check の長さ.
+     */
+    private final int size;
+    /**
+     * base の開始位置.
+     */
+    private final int baseOffset;
+    /**
+     * check の開始位置.
+     */
+    private final int checkOffset;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param data ヘッダ, 文字の番号の表, base, check を並べたもの
+     * @throws IOException 形式が正しくない場合
+     */
+    private DoubleArrayTrie(final ByteBuffer data) throws IOException {
+        if (data.capacity() < HEADER_SIZE + CODES_SIZE
+                || data.getInt(0) != MAGIC) {
+            throw new IOException("not a dictionary");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("unsupported dictionary version: "
+                    + data.getInt(4));
+        }
+        this.data = data;
+        maxLength = data.getInt(8);
+        wordCount = data.getInt(12);
+        size = data.getInt(16);
+        baseOffset = HEADER_SIZE + CODES_SIZE;
+        checkOffset = baseOffset + size * 4;
+        if (data.capacity() != checkOffset + size * 4) {
+            throw new IOException("broken dictionary");
+        }
+    }
+
+    /**
+     * ファイルをメモリマップして開く.
+     *
+     * @param file write() で書き出したファイル
+     * @return 辞書
+     * @throws IOException I/O例外, 形式が正しくない場合
+     */
+    public static DoubleArrayTrie load(final File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // マップはチャネルを閉じても有効
+            FileChannel channel = raf.getChannel();
+            return new DoubleArrayTrie(channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 語の集合から辞書を作る. 文字数が MIN_WORD_LENGTH から MAX_WORD_LENGTH の語だけを入れる.
+     * 語は切り出し時と同じく正規化しておく.
+     *
+     * @param words 語の集合
+     * @return 辞書. ヒープ上に作る
+     */
+    public static DoubleArrayTrie build(final Collection<String> words) {
+        try {
+            return new DoubleArrayTrie(new Builder(words).toByteBuffer());
+        } catch (IOException e) {
+            // 自分で作った形式なので起きない
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ファイルに書き出す.
+     *
+     * @param file ファイル
+     * @throws IOException I/O例外
+     */
+    public void write(final File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            ByteBuffer buffer = data.duplicate();
+            buffer.clear();
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 最長の語の文字数を返す.
+     *
+     * @return 文字数
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * 語の数を返す.
+     *
+     * @return 語の数
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * 文字列の先頭から始まる最長の語の文字数を返す.
+     *
+     * @param text 文字配列
+     * @param offset 開始位置
+     * @param length 文字数
+     * @return 語の文字数. 語がなければ 0
+     */
+    public int matchLongest(final char[] text, final int offset,
+            final int length) {
+        int longest = 0;
+        int s = 0;
+        for (int i = 0; i < length; ++i) {
+            s = next(s, text[offset + i]);
+            if (s < 0) {
+                break;
+            }
+            if (isWordEnd(s)) {
+                longest = i + 1;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * 文字列の先頭から始まる全ての語の文字数を短い順に書き込む.
+     *
+     * @param text 文字配列
+     * @param offset 開始位置
+     * @param length 文字数
+     * @param lengths 語の文字数を書き込む配列. getMaxLength() 以上の長さが要る
+     * @return 語の数
+     */
+    public int matchPrefixes(final char[] text, final int offset,
+            final int length, final int[] lengths) {
+        int n = 0;
+        int s = 0;
+        for (int i = 0; i < length; ++i) {
+            s = next(s, text[offset + i]);
+            if (s < 0) {
+                break;
+            }
+            if (isWordEnd(s)) {
+                lengths[n++] = i + 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 1文字遷移する.
+     *
+     * @param s 状態
+     * @param c 文字
+     * @return 遷移先の状態. 遷移できない場合は -1
+     */
+    private int next(final int s, final char c) {
+        int code = data.getChar(HEADER_SIZE + c * 2);
+        if (code == 0) {
+            return -1;
+        }
+        int t = data.getInt(baseOffset + s * 4) + code;
+        if (t >= size || data.getInt(checkOffset + t * 4) != s) {
+            return -1;
+        }
+        return t;
+    }
+
+    /**
+     * 状態が語の終わりかどうか.
+     *
+     * @param s 状態
+     * @return 語の終わりならtrue
+     */
+    private boolean isWordEnd(final int s) {
+        int t = data.getInt(baseOffset + s * 4);
+        return t < size && data.getInt(checkOffset + t * 4) == s;
+    }
+
+    /**
+     * 語の集合から base と check を作る.
+     */
+    private static final class Builder {
+        /**
+         * 文字の番号の表.
+         */
+        private final char[] codes = new char[Character.MAX_VALUE + 1];
+        /**
+         * 番号に置き換えた語. 辞書順に並べる.
+         */
+        private final int[][] words;
+        /**
+         * 最長の語の文字数.
+         */
+        private int maxLength;
+        /**
+         * base.
+         */
+        private int[] base = new int[1024];
+        /**
+         * check.
+         */
+        private int[] check = new int[1024];
+        /**
+         * 使っている base と check の長さ.
+         */
+        private int size = 1;
+        /**
+         * これより前の check は全て使われている.
+         */
+        private int firstFree = 1;
+
+        /**
+         * コンストラクタ. 作るところまで行なう.
+         *
+         * @param wordSet 語の集合
+         */
+        private Builder(final Collection<String> wordSet) {
+            TreeSet<String> sorted = new TreeSet<String>();
+            for (String word : wordSet) {
+                if (word.length() >= MIN_WORD_LENGTH
+                        && word.length() <= MAX_WORD_LENGTH) {
+                    sorted.add(word);
+                }
+            }
+            assignCodes(sorted);
+            List<int[]> list = new ArrayList<int[]>(sorted.size());
+            for (String word : sorted) {
+                int[] w = new int[word.length()];
+                for (int i = 0; i < w.length; ++i) {
+                    w[i] = codes[word.charAt(i)];
+                }
+                list.add(w);
+                maxLength = Math.max(maxLength, w.length);
+            }
+            words = list.toArray(new int[list.size()][]);
+            // 兄弟が連続して並ぶよう番号の列で並べ直す. 短い語が先に来る
+            Arrays.sort(words, new Comparator<int[]>() {
+                    public int compare(final int[] a, final int[] b) {
+                        int n = Math.min(a.length, b.length);
+                        for (int i = 0; i < n; ++i) {
+                            if (a[i] != b[i]) {
+                                return a[i] - b[i];
+                            }
+                        }
+                        return a.length - b.length;
+                    }
+                });
+            Arrays.fill(check, FREE);
+            // 状態 0 は根. 遷移先にはならない
+            check[0] = Integer.MAX_VALUE;
+            if (words.length > 0) {
+                insert(0, 0, words.length, 0);
+            }
+        }
+
+        /**
+         * 出現する文字に頻度順に番号を振る.
+         *
+         * @param sorted 語の集合
+         */
+        private void assignCodes(final Collection<String> sorted) {
+            final int[] counts = new int[Character.MAX_VALUE + 1];
+            for (String word : sorted) {
+                for (int i = 0; i < word.length(); ++i) {
+                    ++counts[word.charAt(i)];
+                }
+            }
+            List<Integer> chars = new ArrayList<Integer>();
+            for (int c = 0; c < counts.length; ++c) {
+                if (counts[c] > 0) {
+                    chars.add(c);
+                }
+            }
+            Collections.sort(chars, new Comparator<Integer>() {
+                    public int compare(final Integer a, final Integer b) {
+                        return counts[b] - counts[a];
+                    }
+                });
+            for (int i = 0; i < chars.size(); ++i) {
+                codes[chars.get(i)] = (char) (i + 1);
+            }
+        }
+
+        /**
+         * 状態 s から, 語 lo から hi までの depth 文字目以降を入れる.
+         * これらの語は depth 文字目までが同じ.
+         *
+         * @param s 状態
+         * @param lo 最初の語
+         * @param hi 最後の語の次
+         * @param depth 文字の位置
+         */
+        private void insert(final int s, final int lo, final int hi,
+                final int depth) {
+            // 子の番号と, 子ごとの語の範囲
+            int[] labels = new int[hi - lo];
+            int[] starts = new int[hi - lo + 1];
+            int n = 0;
+            for (int i = lo; i < hi; ++i) {
+                int label = depth < words[i].length ? words[i][depth] : 0;
+                if (n == 0 || labels[n - 1] != label) {
+                    labels[n] = label;
+                    starts[n] = i;
+                    ++n;
+                }
+            }
+            starts[n] = hi;
+
+            int b = Math.max(1, firstFree - labels[0]);
+            while (!isFree(b, labels, n)) {
+                ++b;
+            }
+            base[s] = b;
+            for (int i = 0; i < n; ++i) {
+                check[b + labels[i]] = s;
+                size = Math.max(size, b + labels[i] + 1);
+            }
+            while (check[firstFree] != FREE) {
+                ++firstFree;
+                ensureCapacity(firstFree);
+            }
+            for (int i = 0; i < n; ++i) {
+                if (labels[i] != 0) {
+                    insert(b + labels[i], starts[i], starts[i + 1], depth + 1);
+                }
+            }
+        }
+
+        /**
+         * base を b とした場合に全ての子の位置が空いているかどうか.
+         *
+         * @param b base
+         * @param labels 子の番号
+         * @param n 子の数
+         * @return 空いていればtrue
+         */
+        private boolean isFree(final int b, final int[] labels, final int n) {
+            ensureCapacity(b + labels[n - 1]);
+            for (int i = 0; i < n; ++i) {
+                if (check[b + labels[i]] != FREE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 配列を位置 i まで使えるようにする.
+         *
+         * @param i 位置
+         */
+        private void ensureCapacity(final int i) {
+            if (i < check.length) {
+                return;
+            }
+            int capacity = Math.max(check.length * 2, i + 1);
+            int old = check.length;
+            base = Arrays.copyOf(base, capacity);
+            check = Arrays.copyOf(check, capacity);
+            Arrays.fill(check, old, capacity, FREE);
+        }
+
+        /**
+         * ファイルと同じ形式にする.
+         *
+         * @return ヘッダ, 文字の番号の表, base, check を並べたもの
+         */
+        private ByteBuffer toByteBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + CODES_SIZE
+                    + size * 8);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(maxLength)
+                .putInt(words.length).putInt(size);
+            buffer.asCharBuffer().put(codes);
+            buffer.position(HEADER_SIZE + CODES_SIZE);
+            buffer.asIntBuffer().put(base, 0, size);
+            buffer.position(HEADER_SIZE + CODES_SIZE + size * 4);
+            for (int i = 0; i < size; ++i) {
+                // 空きは使われない状態番号にしておく
+                buffer.putInt(check[i] == Integer.MAX_VALUE ? FREE : check[i]);
+            }
+            buffer.clear();
+            return buffer;
+        }
+    }
+}
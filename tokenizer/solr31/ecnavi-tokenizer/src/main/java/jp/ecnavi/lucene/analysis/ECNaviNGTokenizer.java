@@ -0,0 +1,395 @@
+package jp.ecnavi.lucene.analysis;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.AttributeSource;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Solr向けTokenizer. http://twistbendcoupling.net/501/cjktokenizer を元に,
+ * いわゆる半角カナの取扱いを改善した.
+ * ASCII文字列も含めて全てを bi-gram で切り出す.
+ *
+ * @author HARUYAMA Seigo Seigo_Haruyama@ecnavi.co.jp
+ *
+ */
+public final class ECNaviNGTokenizer extends Tokenizer {
+
+	/**
+	 * Tokenの種類.
+	 */
+	private enum TokenType {
+		/**
+		 * なにもない状態.
+		 */
+		NULL,
+		/**
+		 * ASCII文字の bi-gram.
+		 */
+		BIGRAM_SINGLE,
+		/**
+		 * ASCII文字以外の bi-gram.
+		 */
+		BIGRAM_DOUBLE
+	};
+
+	/**
+	 * 記号などの文字のタイプ.
+	 */
+	private static final int CHARTYPE_SYMBOL = CharTypeTable.SYMBOL;
+	/**
+	 * ASCIIなどの文字タイプ.
+	 */
+	private static final int CHARTYPE_SINGLE = CharTypeTable.SINGLE;
+	/**
+	 * 日本語などの文字タイプ.
+	 */
+	private static final int CHARTYPE_DOUBLE = CharTypeTable.DOUBLE;
+
+	/**
+	 * 文字列をどこまで読み進めたかを示す値.
+	 */
+	private transient int offset = 0;
+	/**
+	 * Token切り出し用バッファ.
+	 */
+	private final transient char[] buffer = new char[2];
+	/**
+	 * 最後に読んだ文字タイプ.
+	 */
+	private transient int lastCharType = CHARTYPE_SYMBOL;
+	/**
+	 * 読み戻しが可能な入力のウィンドウ.
+	 */
+	private final transient CharWindow window = new CharWindow();
+
+	/**
+	 * いわゆる半角カナの濁点・半濁点をまとめたときの offsetの補正.
+	 */
+	private transient int hankakuOffset = 0;
+
+	/**
+	 * setDoCapitalizeKana() で変更できる, 設定を指定しない場合に使う設定.
+	 */
+	private static volatile TokenizerProfile defaultProfile = TokenizerProfile
+			.getDefault();
+
+	/**
+	 * 文字タイプのテーブル.
+	 */
+	private final transient CharTypeTable charTypes;
+
+	/**
+	 * 文字の正規化テーブル.
+	 */
+	private final transient CharFoldTable folds;
+
+	/**
+	 * 語の属性.
+	 */
+	private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+	/**
+	 * オフセットの属性.
+	 */
+	private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+
+	/**
+	 * タイプの属性.
+	 */
+	private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+	/**
+	 * コンストラクタ.
+	 *
+	 * @param reader リーダー
+	 */
+	public ECNaviNGTokenizer(final Reader reader) {
+		this(reader, defaultProfile);
+	}
+
+	/**
+	 * コンストラクタ.
+	 *
+	 * @param reader
+	 *            リーダー
+	 * @param profile
+	 *            設定. bi-gram の切り出し方は使わない
+	 */
+	public ECNaviNGTokenizer(final Reader reader, final TokenizerProfile profile) {
+		super();
+		charTypes = profile.getCharTypes();
+		folds = profile.getFolds();
+		init(reader);
+	}
+
+	/**
+	 * コンストラクタ.
+	 *
+	 * @param source
+	 *            ソース
+	 * @param reader
+	 *            リーダー
+	 */
+	public ECNaviNGTokenizer(final AttributeSource source, final Reader reader) {
+		super(source);
+		TokenizerProfile profile = defaultProfile;
+		charTypes = profile.getCharTypes();
+		folds = profile.getFolds();
+		init(reader);
+	}
+
+	/**
+	 * コンストラクタ.
+	 *
+	 * @param factory
+	 *            ファクトリ
+	 * @param reader
+	 *            リーダー
+	 */
+	public ECNaviNGTokenizer(final AttributeFactory factory, final Reader reader) {
+		super(factory);
+		TokenizerProfile profile = defaultProfile;
+		charTypes = profile.getCharTypes();
+		folds = profile.getFolds();
+		init(reader);
+	}
+
+	/**
+	 * 初期化. reset(Reader) から文書ごとに呼ばれるので, オブジェクトの確保はしない.
+	 *
+	 * @param reader
+	 *            リーダー
+	 */
+	private void init(final Reader reader) {
+		window.reset(reader);
+		input = reader;
+		offset = 0;
+		hankakuOffset = 0;
+		lastCharType = CHARTYPE_SYMBOL;
+	}
+
+	/**
+	 * 次のトークンを切り出す.
+	 *
+	 * @return トークンがあればtrue
+	 * @throws IOException
+	 *             I/O例外
+	 */
+	@Override
+	public boolean incrementToken() throws IOException {
+
+		clearAttributes();
+
+		int length = 0;
+		int start = offset;
+		int prevCharType = lastCharType;
+		int charType = lastCharType;
+		int concatCharCount = 0;
+		TokenType tokenType = TokenType.NULL;
+		boolean isHankakuMerged;
+
+		do {
+			// 現在の文字でいわゆる半角カナの濁点・半濁点を結合した場合にのみtrue
+			isHankakuMerged = false;
+
+			int c = window.read();
+			// 文字種の調査
+			prevCharType = charType;
+			if (c >= 0) {
+				++offset;
+				charType = charTypes.getType(c);
+				if (CharFoldTable.isHankakuKana(c)) {
+					// いわゆる半角カナ
+					int c2 = window.read();
+					int merged = folds.compose(c, c2);
+					if (merged == 0) {
+						// 結合が行なわれなかった場合にはいわゆる全角文字に変換し
+						// readerに文字を返す
+						c = folds.fold(c);
+						if (c2 >= 0) {
+							window.unread(c2);
+						}
+					} else {
+						// 結合が行なわれた場合はオフセットの補正を行なう
+						c = merged;
+						isHankakuMerged = true;
+						++hankakuOffset;
+					}
+				} else {
+					// tilde, waveの ー への変更, いわゆる全角英数の半角化,
+					// 英字の小文字化, カナの正規化を一度に行なう
+					c = folds.fold(c);
+				}
+			} else {
+				// end of input.
+				charType = CHARTYPE_SYMBOL;
+			}
+
+			// 現在のトークンタイプによって分岐
+			if (tokenType == TokenType.NULL) {
+				// 現在スキャン中のトークンなし。
+				if (c < 0) {
+					return false;
+				}
+
+				// 文字種によって、トークンタイプを決定
+				// 記号は読み飛ばす
+				if (charType == CHARTYPE_SINGLE) {
+					start = offset - 1;
+					length = 1;
+					buffer[0] = (char) c;
+					tokenType = TokenType.BIGRAM_SINGLE;
+				} else if (charType == CHARTYPE_DOUBLE) {
+					start = offset - 1;
+					length = 1;
+					buffer[0] = (char) c;
+					tokenType = TokenType.BIGRAM_DOUBLE;
+				}
+			} else if (tokenType == TokenType.BIGRAM_SINGLE) {
+
+				if (charType == CHARTYPE_SINGLE) {
+					buffer[length++] = (char) c;
+					window.unread(c);
+					--offset;
+					if (isHankakuMerged) {
+						--offset;
+					}
+					charType = prevCharType;
+					break;
+				} else if (charType == CHARTYPE_DOUBLE) {
+					window.unread(c);
+					--offset;
+					charType = prevCharType;
+				}
+
+				// 現在のバッファの内容は1文字しかない。
+
+				if (c == '-') {
+					if (concatCharCount++ > 0) {
+						if (lastCharType == CHARTYPE_SINGLE) {
+							concatCharCount = 0;
+							length = 0;
+							tokenType = TokenType.NULL;
+							lastCharType = charType;
+							continue;
+						} else {
+							concatCharCount = 0;
+							break;
+						}
+					}
+					charType = CHARTYPE_SINGLE;
+				} else if (lastCharType == CHARTYPE_SINGLE) {
+					concatCharCount = 0;
+					length = 0;
+					tokenType = TokenType.NULL;
+					lastCharType = charType;
+				} else {
+					concatCharCount = 0;
+					break;
+				}
+
+			} else if (tokenType == TokenType.BIGRAM_DOUBLE) {
+
+				if (charType == CHARTYPE_DOUBLE) {
+					buffer[length++] = (char) c;
+					window.unread(c);
+					--offset;
+					if (isHankakuMerged) {
+						--offset;
+					}
+					charType = prevCharType;
+					break;
+				} else if (charType == CHARTYPE_SINGLE) {
+					window.unread(c);
+					--offset;
+					charType = prevCharType;
+				}
+
+				// 現在のバッファの内容は1文字しかない。
+
+				if (charTypes.isConcat(c)) {
+					if (concatCharCount++ > 0) {
+						if (lastCharType == CHARTYPE_DOUBLE) {
+							concatCharCount = 0;
+							length = 0;
+							tokenType = TokenType.NULL;
+							lastCharType = charType;
+							continue;
+						} else {
+							concatCharCount = 0;
+							break;
+						}
+					}
+					charType = CHARTYPE_DOUBLE;
+				} else if (lastCharType == CHARTYPE_DOUBLE) {
+					concatCharCount = 0;
+					length = 0;
+					tokenType = TokenType.NULL;
+					lastCharType = charType;
+				} else {
+					concatCharCount = 0;
+					break;
+				}
+			}
+		} while (true);
+
+		lastCharType = charType;
+
+		termAtt.copyBuffer(buffer, 0, length);
+		offsetAtt.setOffset(start, start + length + concatCharCount
+				+ hankakuOffset);
+		typeAtt.setType(tokenType.name());
+
+		// オフセットの補正をする.
+		offset += hankakuOffset;
+
+		// 最後の文字でいわゆる半角カナの濁点・半濁点が結合されている場合は
+		// オフセットを残す
+		if (isHankakuMerged) {
+			hankakuOffset = 1;
+		} else {
+			hankakuOffset = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * デバッグ用 doCapitalizeKana Setter.
+	 * 以降に設定を指定せずに生成した Tokenizer に効く.
+	 *
+	 * @param doCapitalizeKana
+	 *            doCapitalizeKana のデバッグ値
+	 */
+	public static void setDoCapitalizeKana(final boolean doCapitalizeKana) {
+		defaultProfile = TokenizerProfile.getDefault().withCapitalizeKana(
+				doCapitalizeKana);
+	}
+
+	/**
+	 * 最後のオフセットを指定する.
+	 */
+	@Override
+	public void end() {
+		this.offsetAtt.setOffset(offset, offset);
+	}
+
+	/**
+	 * Tokenizerを再利用する.
+	 *
+	 * @param reader
+	 *            新しいreader
+	 *
+	 * @throws IOException
+	 *             I/O例外
+	 */
+	@Override
+	public void reset(final Reader reader) throws IOException {
+		super.reset(reader);
+		init(reader);
+	}
+}
@@ -0,0 +1,1859 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * ECNaviTokenizer の切り出し処理本体. Lucene の属性を使わずに, 文字配列の範囲から
+ * Token の位置と種類を切り出す.
+ *
+ * ECNaviTokenizer もこのクラスで切り出し, 結果を属性に写すだけなので,
+ * ハイフン抜きの Token やいわゆる半角カナの結合も含めて切り出し結果は同じになる.
+ * 索引以外のバッチ処理 (重複判定, 分類, クエリログの集計など) で
+ * AttributeSource や Reader の負荷なしに使うためのもの.
+ *
+ * <pre>
+ * ECNaviSegmenter segmenter = new ECNaviSegmenter(profile);
+ * segmenter.reset(text, 0, text.length);
+ * int n;
+ * while ((n = segmenter.read(starts, ends, types, 0, starts.length)) &gt; 0) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * スレッドセーフではない. スレッドごとに生成して使い回すこと.
+ *
+ * @author HARUYAMA Seigo Seigo_Haruyama@ecnavi.co.jp
+ *
+ */
+public final class ECNaviSegmenter {
+	/**
+	 * ASCII文字の Token の種類.
+	 */
+	public static final int TYPE_SINGLE = 1;
+	/**
+	 * ASCII文字以外の Token の種類.
+	 */
+	public static final int TYPE_DOUBLE = 2;
+	/**
+	 * ハイフンで接続されたASCII文字を連結した Token の種類.
+	 */
+	public static final int TYPE_UNHYPHENATED = 3;
+	/**
+	 * 辞書の語の Token の種類.
+	 */
+	public static final int TYPE_WORD = 4;
+	/**
+	 * ASCII文字列の前方の n-gram の Token の種類.
+	 */
+	public static final int TYPE_EDGE_NGRAM = 5;
+
+	/**
+	 * なにもない状態.
+	 */
+	private static final int TYPE_NULL = 0;
+
+	/**
+	 * Tokenの種類の名前. TypeAttribute に設定する値.
+	 */
+	private static final String[] TYPE_NAMES = {"NULL", "SINGLE", "DOUBLE",
+			"UNHYPHENATED", "WORD", "EDGE"};
+
+	/**
+	 * LongTokenMode.HASH で切り出すTokenの文字長.
+	 */
+	private static final int HASH_LENGTH = 16;
+
+	/**
+	 * 16進数の文字.
+	 */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * FNV-1a の初期値.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * FNV-1a の乗数.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Tokenとして切り出す最大の文字長.
+	 */
+	private final int maxWordLen;
+
+	/**
+	 * 最大の文字長を超えるASCII文字列の扱い方.
+	 */
+	private final LongTokenMode longTokenMode;
+
+	/**
+	 * 記号などの文字のタイプ.
+	 */
+	private static final int CHARTYPE_SYMBOL = CharTypeTable.SYMBOL;
+	/**
+	 * ASCIIなどの文字タイプ.
+	 */
+	private static final int CHARTYPE_SINGLE = CharTypeTable.SINGLE;
+	/**
+	 * bi-gram対象の文字タイプ.
+	 */
+	private static final int CHARTYPE_DOUBLE = CharTypeTable.DOUBLE;
+
+	/**
+	 * Tokenを1つ受け取るコールバック.
+	 */
+	public interface Handler {
+		/**
+		 * Tokenを受け取る. term の内容は次の Token を切り出すまでしか有効でない.
+		 *
+		 * @param term
+		 *            Tokenの文字列を保持するバッファ
+		 * @param termOffset
+		 *            バッファ上の開始位置
+		 * @param termLength
+		 *            文字列長
+		 * @param start
+		 *            Tokenの開始位置
+		 * @param end
+		 *            Tokenの終了位置
+		 * @param type
+		 *            Tokenの種類
+		 * @param positionIncrement
+		 *            位置の増分
+		 */
+		void token(char[] term, int termOffset, int termLength, int start,
+				int end, int type, int positionIncrement);
+	}
+
+	/**
+	 * 文字列をどこまで読み進めたかを示す値.
+	 */
+	private int offset = 0;
+	/**
+	 * 報告するオフセットに加える値. 文字配列の範囲から切り出す場合は範囲の開始位置.
+	 */
+	private int base = 0;
+	/**
+	 * Token切り出し用バッファ.
+	 */
+	private final char[] buffer;
+	/**
+	 * 最後に読んだ文字タイプ.
+	 */
+	private int lastCharType = CHARTYPE_SYMBOL;
+	/**
+	 * 現在の文字タイプ.
+	 */
+	private int charType = CHARTYPE_SYMBOL;
+	/**
+	 * 1つ前の文字タイプ.
+	 */
+	private int prevCharType = CHARTYPE_SYMBOL;
+	/**
+	 * ブロック単位で読み込み, 読み戻しが可能な入力.
+	 */
+	private final CharWindow window = new CharWindow();
+
+	/**
+	 * ハイフン関係の状態.
+	 *
+	 * NORMAL: 通常('', 'A') NORMAL_HYPHEN: 通常から'-'になった状態('A-', ただし '-' は除く)
+	 * HYPHEN: '-'の後でASCIIが連続している除隊('A-B', 'A-B-C') HYPHEN_HYPHEN: ('A-B-')
+	 * RETURN: Token情報を返している状態
+	 *
+	 */
+	private enum HyphenState {
+		/**
+		 * 通常('', 'A').
+		 */
+		NORMAL,
+		/**
+		 * 通常から'-'になった状態('A-', ただし '-' は除く).
+		 */
+		NORMAL_HYPHEN,
+		/**
+		 * '-'の後でASCIIが連続している除隊('A-B', 'A-B-C').
+		 */
+		HYPHEN,
+		/**
+		 * ('A-B-').
+		 */
+		HYPHEN_HYPHEN,
+		/**
+		 * Token情報を返している状態.
+		 */
+		RETURN
+	};
+
+	/**
+	 * 現在のハイフンの処理状態.
+	 */
+	private HyphenState hyphenState;
+
+	/**
+	 * ハイフンの連結をいくつまで許容するか ハイフンの数であって連結される文字列は +1 なことに注意.
+	 */
+	private final int maxHyphen;
+
+	/**
+	 * ハイフン抜きの Token の切り出し方.
+	 */
+	private final UnhyphenateMode unhyphenateMode;
+
+	/**
+	 * ハイフン抜きで結合される候補の文字列を連結して保持するバッファ.
+	 * 候補は連続して並ぶので, 候補 i から j までを結合した文字列はこのバッファ上で連続する.
+	 */
+	private final char[] candidateBuffer;
+
+	/**
+	 * candidateBuffer の使用済みの長さ.
+	 */
+	private int candidateBufferLength;
+
+	/**
+	 * 各候補の candidateBuffer 上の開始位置.
+	 */
+	private final int[] candidatePositions;
+
+	/**
+	 * 各候補のstartOffset.
+	 */
+	private final int[] candidateStarts;
+
+	/**
+	 * ハイフン抜きで結合される候補の数.
+	 */
+	private int candidateCount;
+
+	/**
+	 * ハイフン抜きで結合されたTokenのキュー.
+	 */
+	private final TokenQueue unhyphenatedQueue;
+
+	/**
+	 * 重ねるために, 前の連結の残りのTokenをキューから先に取り出したかどうか.
+	 * 重ねない場合にキューに残っている間だけtrueにする.
+	 */
+	private boolean isOrphanTaken;
+
+	/**
+	 * ハイフン抜きのTokenを, 結合した最初の部分と同じ位置に重ねるかどうか.
+	 */
+	private final boolean stackUnhyphenated;
+
+	/**
+	 * 重ねるために並べ替えているTokenのキュー. 重ねない場合は null.
+	 */
+	private final TokenQueue stackedQueue;
+
+	/**
+	 * stackedQueue のTokenの番号を, 返す順 (startOffset の順, 同じなら追加した順)
+	 * に並べたもの.
+	 */
+	private int[] stackedOrder;
+
+	/**
+	 * stackedQueue に追加したTokenの数.
+	 */
+	private int stackedCount;
+
+	/**
+	 * stackedOrder のうち返し終えた数.
+	 */
+	private int stackedHead;
+
+	/**
+	 * 並べ替えの前の切り出しが入力の終わりに達したかどうか.
+	 */
+	private boolean isStackEnded;
+
+	/**
+	 * いわゆる半角カナの濁点・半濁点をまとめたときの offsetの補正.
+	 */
+	private int hankakuOffset = 0;
+
+	/**
+	 * いわゆる半角カナの濁点・半濁点をまとめたかどうか.
+	 */
+	private boolean isHankakuMerged;
+
+	/**
+	 * 文字タイプのテーブル.
+	 */
+	private final CharTypeTable charTypes;
+
+	/**
+	 * 文字の正規化テーブル.
+	 */
+	private final CharFoldTable folds;
+
+	/**
+	 * bi-gram の切り出し方.
+	 */
+	private final BigramMode bigramMode;
+
+	/**
+	 * 直前の nextToken() で bi-gram を切り出したかどうか.
+	 */
+	private boolean isBigram;
+
+	/**
+	 * 直前の nextToken() で切り出したTokenが, 最初に読んだ文字から始まっているかどうか.
+	 * bi-gram の場合, 前の bi-gram が読み戻した文字から始まっていれば同じ連続の続きである.
+	 */
+	private boolean isStartedAtFirstChar;
+
+	/**
+	 * 現在の連続で何番目の bi-gram まで切り出したか.
+	 */
+	private int bigramCount;
+
+	/**
+	 * BigramMode.MINIMAL で返すかどうか保留している bi-gram.
+	 */
+	private final char[] heldBigram = new char[2];
+
+	/**
+	 * 保留している bi-gram があるかどうか.
+	 */
+	private boolean hasHeldBigram;
+
+	/**
+	 * 保留している bi-gram のstartOffset.
+	 */
+	private int heldBigramStart;
+
+	/**
+	 * 保留している bi-gram のendOffset.
+	 */
+	private int heldBigramEnd;
+
+	/**
+	 * 保留している bi-gram を先に返すために, 後回しにしたTokenの文字列.
+	 */
+	private final char[] pendingTerm;
+
+	/**
+	 * 後回しにしたTokenの文字列長. 後回しにしたTokenがない場合は -1.
+	 */
+	private int pendingLength = -1;
+
+	/**
+	 * 後回しにしたTokenのstartOffset.
+	 */
+	private int pendingStart;
+
+	/**
+	 * 後回しにしたTokenのendOffset.
+	 */
+	private int pendingEnd;
+
+	/**
+	 * 後回しにしたTokenの種類.
+	 */
+	private int pendingType;
+
+	/**
+	 * bi-gram の連続から語を切り出す辞書. 使わない場合は null.
+	 */
+	private final DoubleArrayTrie dictionary;
+
+	/**
+	 * 辞書を引くために保持する bi-gram の数. 辞書の最長の語の文字数.
+	 */
+	private final int lookahead;
+
+	/**
+	 * 保持している bi-gram の連続の文字. 先頭の bi-gram は runChars[0] から始まる.
+	 */
+	private final char[] runChars;
+
+	/**
+	 * 保持している各 bi-gram のstartOffset.
+	 */
+	private final int[] runStarts;
+
+	/**
+	 * 保持している各 bi-gram のendOffset.
+	 */
+	private final int[] runEnds;
+
+	/**
+	 * 保持している bi-gram の数.
+	 */
+	private int runCount;
+
+	/**
+	 * 先頭の bi-gram の, 連続の中での位置.
+	 */
+	private int runHead;
+
+	/**
+	 * 保持している連続が終わったかどうか. 連続の終わりを知るために切り出したTokenは
+	 * 後回しにしている.
+	 */
+	private boolean isRunEnded;
+
+	/**
+	 * 後回しにしたTokenが次の連続の最初の bi-gram かどうか.
+	 */
+	private boolean isPendingBigram;
+
+	/**
+	 * 先頭の bi-gram を返したかどうか. BigramMode.ALL で使う.
+	 */
+	private boolean isRunHeadReturned;
+
+	/**
+	 * 返したTokenが runChars を参照しているので, 次に進むときに先頭の bi-gram を捨てる.
+	 */
+	private boolean isRunShiftPending;
+
+	/**
+	 * 先頭の bi-gram から始まる語の文字数. BigramMode.ALL で使う.
+	 */
+	private final int[] wordLengths;
+
+	/**
+	 * 先頭の bi-gram から始まる語の数.
+	 */
+	private int wordCount;
+
+	/**
+	 * 先頭の bi-gram から始まる語のうち返した数.
+	 */
+	private int wordIndex;
+
+	/**
+	 * 連続の中で, 返したTokenが覆った文字の終わり. BigramMode.MINIMAL で使う.
+	 */
+	private int coveredEnd;
+
+	/**
+	 * 連続の中で最後に返したTokenの位置. BigramMode.MINIMAL で使う.
+	 */
+	private int lastRunPosition;
+
+	/**
+	 * 次に返すTokenの位置の増分に加える値. 語で連続の最後まで覆った場合に,
+	 * 返さなかった bi-gram の分だけ位置を進めて索引時の位置と揃える.
+	 */
+	private int positionGap;
+
+	/**
+	 * 現在処理中のトークンの種類.
+	 */
+	private int tokenType;
+	/**
+	 * 現在処理中の接続文字カウント.
+	 */
+	private int concatCharCount;
+	/**
+	 * 現在処理中のトークンのstartOffset.
+	 */
+	private int start;
+	/**
+	 * 現在処理中のトークンの文字列長.
+	 */
+	private int length;
+	/**
+	 * 現在処理中のトークンが覆う文字のうち, 文字列に含めなかった文字数.
+	 * 最大の文字長を超えるASCII文字列を DROP, PREFIX, HASH で扱った場合に使う.
+	 */
+	private int extraLength;
+	/**
+	 * 現在処理中のトークンを LongTokenMode.DROP で捨てるかどうか.
+	 */
+	private boolean isDropped;
+	/**
+	 * 現在処理中のトークンを LongTokenMode.HASH でハッシュ値にしたかどうか.
+	 */
+	private boolean isHashed;
+
+	/**
+	 * ASCII文字列の Token から前方の n-gram を扱う方法.
+	 */
+	private final EdgeNGramMode edgeNGramMode;
+	/**
+	 * 前方の n-gram の最小の文字長.
+	 */
+	private final int minGramSize;
+	/**
+	 * 前方の n-gram の最大の文字長.
+	 */
+	private final int maxGramSize;
+	/**
+	 * 前方の n-gram を切り出す元の Token の先頭部分. EdgeNGramMode.INDEX で使う.
+	 */
+	private final char[] edgeBuffer;
+	/**
+	 * 次に返す前方の n-gram の文字長.
+	 */
+	private int edgeLength;
+	/**
+	 * 返す前方の n-gram の最大の文字長. edgeLength がこれを超えたら返し終えている.
+	 */
+	private int edgeMaxLength;
+	/**
+	 * 前方の n-gram のstartOffset. 元の Token と同じ.
+	 */
+	private int edgeStart;
+	/**
+	 * 前方の n-gram のendOffset. 元の Token と同じ.
+	 */
+	private int edgeEnd;
+
+	/**
+	 * 切り出したTokenの文字列を保持するバッファ.
+	 */
+	private char[] termBuffer;
+	/**
+	 * 切り出したTokenの文字列の termBuffer 上の開始位置.
+	 */
+	private int termOffset;
+	/**
+	 * 切り出したTokenの文字列長.
+	 */
+	private int termLength;
+	/**
+	 * 切り出したTokenのstartOffset. base は含まない.
+	 */
+	private int termStart;
+	/**
+	 * 切り出したTokenのendOffset. base は含まない.
+	 */
+	private int termEnd;
+	/**
+	 * 切り出したTokenの種類.
+	 */
+	private int termType;
+	/**
+	 * 切り出したTokenの位置の増分.
+	 */
+	private int positionIncrement;
+
+	/**
+	 * 切り出し処理の統計.
+	 */
+	private TokenizerStats stats = new TokenizerStats();
+	/**
+	 * この文書の入力の終わりを統計に数えたかどうか.
+	 */
+	private boolean isEndCounted;
+
+	/**
+	 * コンストラクタ. Config の値だけから生成した設定を使う.
+	 */
+	public ECNaviSegmenter() {
+		this(TokenizerProfile.getDefault());
+	}
+
+	/**
+	 * コンストラクタ.
+	 *
+	 * @param profile
+	 *            設定
+	 */
+	public ECNaviSegmenter(final TokenizerProfile profile) {
+		bigramMode = profile.getBigramMode();
+		unhyphenateMode = profile.getUnhyphenateMode();
+		maxHyphen = profile.getMaxHyphen();
+		stackUnhyphenated = profile.isStackUnhyphenated();
+		dictionary = profile.getDictionary();
+		edgeNGramMode = profile.getEdgeNGramMode();
+		minGramSize = profile.getMinGramSize();
+		maxGramSize = profile.getMaxGramSize();
+		longTokenMode = profile.getLongTokenMode();
+		maxWordLen = profile.getMaxTokenLength();
+		charTypes = profile.getCharTypes();
+		folds = profile.getFolds();
+		// ハッシュ値は最大の文字長が短い場合も書き込めるようにする
+		buffer = new char[Math.max(maxWordLen, HASH_LENGTH)];
+		candidateBuffer = new char[maxWordLen * (maxHyphen + 1)];
+		candidatePositions = new int[maxHyphen + 1];
+		candidateStarts = new int[maxHyphen + 1];
+		pendingTerm = new char[Math.max(maxWordLen * (maxHyphen + 1),
+				buffer.length)];
+		unhyphenatedQueue = new TokenQueue(maxHyphen * (maxHyphen + 1) / 2,
+				maxWordLen * maxHyphen);
+		if (stackUnhyphenated) {
+			// ハイフンの連結の部分とハイフン抜きのTokenを保持する
+			int capacity = maxHyphen * (maxHyphen + 1) / 2 + maxHyphen + 2;
+			stackedQueue = new TokenQueue(capacity, maxWordLen
+					* (maxHyphen + 1) * 2);
+			stackedOrder = new int[capacity];
+		} else {
+			stackedQueue = null;
+		}
+		if (edgeNGramMode == EdgeNGramMode.INDEX) {
+			edgeBuffer = new char[maxGramSize];
+		} else {
+			edgeBuffer = null;
+		}
+		if (dictionary != null) {
+			lookahead = Math.max(1, dictionary.getMaxLength());
+			runChars = new char[lookahead + 1];
+			runStarts = new int[lookahead];
+			runEnds = new int[lookahead];
+			wordLengths = new int[lookahead];
+		} else {
+			lookahead = 0;
+			runChars = null;
+			runStarts = null;
+			runEnds = null;
+			wordLengths = null;
+		}
+		init(0);
+	}
+
+	/**
+	 * 文字配列の範囲を切り出しの対象にする. 範囲の内容は書き換えない.
+	 * 切り出し中に範囲の内容を変えてはならない.
+	 *
+	 * @param text
+	 *            文字配列
+	 * @param offset
+	 *            範囲の開始位置
+	 * @param length
+	 *            範囲の文字数
+	 */
+	public void reset(final char[] text, final int offset, final int length) {
+		if (offset < 0 || length < 0 || offset + length > text.length) {
+			throw new IndexOutOfBoundsException("offset: " + offset
+					+ ", length: " + length);
+		}
+		window.reset(text, offset, length);
+		init(offset);
+	}
+
+	/**
+	 * Readerを切り出しの対象にする.
+	 *
+	 * @param reader
+	 *            リーダー
+	 */
+	void reset(final Reader reader) {
+		window.reset(reader);
+		init(0);
+	}
+
+	/**
+	 * 初期化. 文書ごとに呼ばれるので, オブジェクトの確保はせず
+	 * 前の文書の状態を全て消すだけにする.
+	 *
+	 * @param newBase
+	 *            報告するオフセットに加える値
+	 */
+	private void init(final int newBase) {
+		unhyphenatedQueue.clear();
+		isOrphanTaken = false;
+		candidateCount = 0;
+		candidateBufferLength = 0;
+		hyphenState = HyphenState.NORMAL;
+		base = newBase;
+		offset = 0;
+		// 前の文書の末尾で結合された半角カナのずれを持ち越さない
+		hankakuOffset = 0;
+		isHankakuMerged = false;
+		lastCharType = CHARTYPE_SYMBOL;
+		charType = CHARTYPE_SYMBOL;
+		prevCharType = CHARTYPE_SYMBOL;
+		tokenType = TYPE_NULL;
+		concatCharCount = 0;
+		start = 0;
+		length = 0;
+		extraLength = 0;
+		isDropped = false;
+		isHashed = false;
+		edgeLength = 1;
+		edgeMaxLength = 0;
+		bigramCount = 0;
+		hasHeldBigram = false;
+		pendingLength = -1;
+		if (stackedQueue != null) {
+			stackedQueue.clear();
+		}
+		stackedCount = 0;
+		stackedHead = 0;
+		isStackEnded = false;
+		runCount = 0;
+		runHead = 0;
+		isRunEnded = false;
+		isPendingBigram = false;
+		isRunHeadReturned = false;
+		isRunShiftPending = false;
+		wordCount = 0;
+		wordIndex = 0;
+		coveredEnd = 0;
+		lastRunPosition = -1;
+		positionGap = 0;
+		termBuffer = buffer;
+		termOffset = 0;
+		termLength = 0;
+		termStart = 0;
+		termEnd = 0;
+		termType = TYPE_NULL;
+		positionIncrement = 1;
+		isEndCounted = false;
+	}
+
+	/**
+	 * 次のTokenを切り出す. 切り出したTokenはgetterで参照する.
+	 *
+	 * @return Tokenがあればtrue
+	 */
+	public boolean next() {
+		try {
+			return incrementToken();
+		} catch (IOException e) {
+			// 文字配列から読む場合は起きない
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Tokenを切り出して配列に書き込む. 書き込んだ数が len より少なければ入力の終わりまで読んでいる.
+	 *
+	 * @param starts
+	 *            Tokenの開始位置を書き込む配列
+	 * @param ends
+	 *            Tokenの終了位置を書き込む配列
+	 * @param types
+	 *            Tokenの種類を書き込む配列. null なら書き込まない
+	 * @param off
+	 *            配列の書き込み開始位置
+	 * @param len
+	 *            書き込む最大の数
+	 * @return 書き込んだ数. 入力の終わりに達していて1つも書き込めない場合は -1
+	 */
+	public int read(final int[] starts, final int[] ends, final int[] types,
+			final int off, final int len) {
+		int n = 0;
+		while (n < len && next()) {
+			starts[off + n] = base + termStart;
+			ends[off + n] = base + termEnd;
+			if (types != null) {
+				types[off + n] = termType;
+			}
+			++n;
+		}
+		if (n == 0 && len > 0) {
+			return -1;
+		}
+		return n;
+	}
+
+	/**
+	 * 文字配列の範囲から全てのTokenを切り出し, コールバックに渡す.
+	 *
+	 * @param text
+	 *            文字配列
+	 * @param offset
+	 *            範囲の開始位置
+	 * @param length
+	 *            範囲の文字数
+	 * @param handler
+	 *            コールバック
+	 * @return 切り出したTokenの数
+	 */
+	public int segment(final char[] text, final int offset, final int length,
+			final Handler handler) {
+		reset(text, offset, length);
+		int n = 0;
+		while (next()) {
+			handler.token(termBuffer, termOffset, termLength, base + termStart,
+					base + termEnd, termType, positionIncrement);
+			++n;
+		}
+		return n;
+	}
+
+	/**
+	 * 切り出したTokenの文字列を保持するバッファを返す. 内容は次の Token を切り出すまで有効.
+	 *
+	 * @return バッファ
+	 */
+	public char[] getTermBuffer() {
+		return termBuffer;
+	}
+
+	/**
+	 * 切り出したTokenの文字列のバッファ上の開始位置を返す.
+	 *
+	 * @return 開始位置
+	 */
+	public int getTermOffset() {
+		return termOffset;
+	}
+
+	/**
+	 * 切り出したTokenの文字列長を返す.
+	 *
+	 * @return 文字列長
+	 */
+	public int getTermLength() {
+		return termLength;
+	}
+
+	/**
+	 * 切り出したTokenの開始位置を返す. 文字配列の範囲から切り出す場合は配列上の位置.
+	 *
+	 * @return 開始位置
+	 */
+	public int getStartOffset() {
+		return base + termStart;
+	}
+
+	/**
+	 * 切り出したTokenの終了位置を返す. 文字配列の範囲から切り出す場合は配列上の位置.
+	 *
+	 * @return 終了位置
+	 */
+	public int getEndOffset() {
+		return base + termEnd;
+	}
+
+	/**
+	 * 切り出したTokenの種類を返す.
+	 *
+	 * @return TYPE_SINGLE, TYPE_DOUBLE, TYPE_UNHYPHENATED のいずれか
+	 */
+	public int getType() {
+		return termType;
+	}
+
+	/**
+	 * 切り出したTokenの位置の増分を返す.
+	 *
+	 * @return 位置の増分
+	 */
+	public int getPositionIncrement() {
+		return positionIncrement;
+	}
+
+	/**
+	 * 最後まで読んだ場合の終了位置を返す.
+	 *
+	 * @return 終了位置
+	 */
+	public int getFinalOffset() {
+		return base + offset;
+	}
+
+	/**
+	 * 統計の記録先を返す.
+	 *
+	 * @return 統計
+	 */
+	public TokenizerStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * 統計の記録先を設定する. 同じスレッドで使うセグメンタの間でだけ共有できる.
+	 *
+	 * @param stats
+	 *            統計
+	 */
+	public void setStats(final TokenizerStats stats) {
+		if (stats == null) {
+			throw new IllegalArgumentException("stats is null");
+		}
+		this.stats = stats;
+	}
+
+	/**
+	 * Tokenの種類の名前を返す. ECNaviTokenizer が TypeAttribute に設定する値と同じ.
+	 *
+	 * @param type
+	 *            Tokenの種類
+	 * @return 名前
+	 */
+	public static String typeName(final int type) {
+		return TYPE_NAMES[type];
+	}
+
+	/**
+	 * 切り出したTokenを設定する.
+	 *
+	 * @param term
+	 *            文字列バッファ
+	 * @param off
+	 *            バッファ上の開始位置
+	 * @param len
+	 *            文字列長
+	 * @param termStart
+	 *            開始位置
+	 * @param termEnd
+	 *            終了位置
+	 * @param type
+	 *            種類
+	 */
+	private void setToken(final char[] term, final int off, final int len,
+			final int termStart, final int termEnd, final int type) {
+		this.termBuffer = term;
+		this.termOffset = off;
+		this.termLength = len;
+		this.termStart = termStart;
+		this.termEnd = termEnd;
+		this.termType = type;
+		this.positionIncrement = 1;
+	}
+
+	/**
+	 * ハイフンの処理状態をリセットする.
+	 */
+	private void resetHyphenState() {
+		if (hyphenState != HyphenState.NORMAL) {
+			hyphenState = HyphenState.NORMAL;
+			candidateCount = 0;
+			candidateBufferLength = 0;
+			// unhyphenatedTokenQueue.clear();
+		}
+	}
+
+	/**
+	 * キューから次のハイフン抜きTokenを取り出して設定する.
+	 * 残りTokenが0になったらハイフンの状態をリセット.
+	 *
+	 * @return ハイフン抜きTokenを設定したらtrue. ない場合は false
+	 */
+	private boolean nextUnhyphenatedToken() {
+		if (unhyphenatedQueue.isEmpty()) {
+			isOrphanTaken = false;
+			resetHyphenState();
+			return false;
+		}
+		int i = unhyphenatedQueue.poll();
+		if (unhyphenatedQueue.isEmpty()) {
+			isOrphanTaken = false;
+			resetHyphenState();
+		} else {
+			hyphenState = HyphenState.RETURN;
+		}
+		setToken(unhyphenatedQueue.getChars(),
+				unhyphenatedQueue.getCharStart(i),
+				unhyphenatedQueue.getLength(i), unhyphenatedQueue.getStart(i),
+				unhyphenatedQueue.getEnd(i), TYPE_UNHYPHENATED);
+		return true;
+	}
+
+	/**
+	 * 文字を1文字読んでないことにする.
+	 *
+	 * @param c 文字
+	 * @throws IOException I/O例外
+	 */
+	private void unread(int c) throws IOException {
+		--offset;
+		if (isHankakuMerged) {
+			--offset;
+		}
+		window.unread(c);
+		charType = prevCharType;
+	}
+
+	/**
+	 * 文字をスキャンする.
+	 *
+	 * @param c スキャンする文字
+	 * @return スキャン済み文字
+	 * @throws IOException I/O例外
+	 */
+	private int scanChar(int c) throws IOException {
+
+		if (c >= 0) {
+			++offset;
+			charType = charTypes.getType(c);
+			if (CharFoldTable.isHankakuKana(c)) {
+				// いわゆる半角カナ
+				int c2 = window.read();
+				int merged = folds.compose(c, c2);
+				if (merged == 0) {
+					// 結合が行なわれなかった場合にはいわゆる全角文字に変換し
+					// readerに文字を返す
+					c = folds.fold(c);
+					if (c2 >= 0) {
+						window.unread(c2);
+					}
+				} else {
+					// 結合が行なわれた場合はオフセットの補正を行なう
+					c = merged;
+					isHankakuMerged = true;
+					++hankakuOffset;
+					++stats.hankakuMerges;
+				}
+			} else {
+				// tilde, waveの ー への変更, いわゆる全角英数の半角化,
+				// 英字の小文字化, カナの正規化を一度に行なう
+				c = folds.fold(c);
+			}
+		} else {
+			// end of input.
+			charType = CHARTYPE_SYMBOL;
+		}
+		return c;
+	}
+
+	/**
+	 * TYPE_DOUBLE の場合の処理を行なう.
+	 *
+	 * @param c 文字
+	 * @return 一旦Tokenを確定させるか
+	 * @throws IOException I/O例外
+	 */
+	private boolean processTokenTypeDouble(final int c) throws IOException {
+		if (charType == CHARTYPE_DOUBLE) {
+			buffer[length++] = (char) c;
+			unread(c);
+			return true;
+		} else if (charType == CHARTYPE_SINGLE) {
+			unread(c);
+		}
+		// 現在のバッファの内容は1文字しかない。
+		// 前の文字がDOUBLEである場合は、このまま新しいトークンのスキャンに移行。
+		if (charTypes.isConcat(c)) {
+			if (concatCharCount++ > 0) {
+				if (lastCharType == CHARTYPE_DOUBLE) {
+					concatCharCount = 0;
+					length = 0;
+					tokenType = TYPE_NULL;
+					lastCharType = charType;
+				} else {
+					concatCharCount = 0;
+					return true;
+				}
+			}
+			charType = CHARTYPE_DOUBLE;
+		} else if (lastCharType == CHARTYPE_DOUBLE) {
+			concatCharCount = 0;
+			length = 0;
+			tokenType = TYPE_NULL;
+			lastCharType = charType;
+		} else {
+			concatCharCount = 0;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * TYPE_SINGLE の場合の処理を行なう.
+	 *
+	 * @param c 文字
+	 * @return 一旦Tokenを確定させるか
+	 * @throws IOException I/O例外
+	 */
+	private boolean processTokenTypeSingle(final int c) throws IOException {
+
+		if (charType == CHARTYPE_SINGLE) {
+			// '...a-a'
+			if (hyphenState == HyphenState.NORMAL_HYPHEN
+					|| hyphenState == HyphenState.HYPHEN_HYPHEN) {
+				// 英数単語の後のハイフンの次の最初の英数で
+				// 前の単語をadd
+				hyphenState = HyphenState.HYPHEN;
+				addUnhyphenatedBuffer(buffer, length, start);
+				length = 0;
+			}
+			buffer[length++] = (char) c;
+			if (length >= maxWordLen && peekCharType() == CHARTYPE_SINGLE) {
+				++stats.wordSplits;
+				if (longTokenMode != LongTokenMode.SPLIT) {
+					// 長い文字列はハイフン抜きの結合に加えない
+					skipLongToken();
+					if (candidateCount == 0) {
+						resetHyphenState();
+					} else {
+						hyphenState = HyphenState.RETURN;
+					}
+					return true;
+				}
+			}
+			if (length >= maxWordLen) {
+				// バッファに空きがないので、ここで一旦トークンとして切り出す。
+				if (candidateCount == 0) {
+					resetHyphenState();
+				} else {
+					addUnhyphenatedBuffer(buffer, length, start);
+					hyphenState = HyphenState.RETURN;
+				}
+				return true;
+			}
+		} else if (charType == CHARTYPE_DOUBLE) {
+			unread(c);
+			if (!unhyphenatedQueue.isEmpty() || isOrphanTaken) {
+				// '...a-あ'
+				// ハイフン処理中なら現在処理中のトークンを返却後ハイフン除去トークン返却
+				if (hyphenState == HyphenState.HYPHEN) {
+					addUnhyphenatedBuffer(buffer, length, start);
+				}
+				hyphenState = HyphenState.RETURN;
+			}
+			return true;
+		} else if (c == '-') {
+			if (candidateCount >= maxHyphen) {
+				++stats.hyphenCutoffs;
+				if (hyphenState == HyphenState.HYPHEN) {
+					// '..a--' 以外の場合はadd
+					addUnhyphenatedBuffer(buffer, length, start);
+				}
+				hyphenState = HyphenState.RETURN;
+				return true;
+			}
+			addUnhyphenatedBuffer(buffer, length, start);
+
+			if (hyphenState == HyphenState.NORMAL) {
+				hyphenState = HyphenState.NORMAL_HYPHEN;
+			} else if (hyphenState == HyphenState.HYPHEN) {
+				hyphenState = HyphenState.HYPHEN_HYPHEN;
+			}
+			return true;
+		} else {
+			if (candidateCount == 0) {
+				resetHyphenState();
+			} else {
+				addUnhyphenatedBuffer(buffer, length, start);
+				hyphenState = HyphenState.RETURN;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 次の文字の文字タイプを, 文字を読み進めずに返す.
+	 * 正規化していない文字で調べるが, 文字タイプは正規化の前後で変わらない.
+	 *
+	 * @return 文字タイプ. 入力の終わりでは CHARTYPE_SYMBOL
+	 * @throws IOException I/O例外
+	 */
+	private int peekCharType() throws IOException {
+		int c = window.read();
+		if (c < 0) {
+			return CHARTYPE_SYMBOL;
+		}
+		window.unread(c);
+		return charTypes.getType(c);
+	}
+
+	/**
+	 * 最大の文字長を超えたASCII文字列の残りを読み飛ばし, longTokenMode に従って
+	 * 現在処理中のトークンを書き換える. 読み飛ばした文字はバッファに入れないので,
+	 * 文字列がいくら長くてもバッファは最大の文字長を超えない.
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private void skipLongToken() throws IOException {
+		boolean isHash = longTokenMode == LongTokenMode.HASH;
+		long hash = FNV_OFFSET_BASIS;
+		if (isHash) {
+			for (int i = 0; i < length; ++i) {
+				hash = (hash ^ buffer[i]) * FNV_PRIME;
+			}
+		}
+		while (true) {
+			isHankakuMerged = false;
+			prevCharType = charType;
+			int c = scanChar(window.read());
+			if (charType != CHARTYPE_SINGLE) {
+				if (c >= 0) {
+					unread(c);
+				}
+				break;
+			}
+			++extraLength;
+			if (isHash) {
+				hash = (hash ^ c) * FNV_PRIME;
+			}
+		}
+		if (longTokenMode == LongTokenMode.DROP) {
+			isDropped = true;
+		} else if (isHash) {
+			isHashed = true;
+			extraLength += length - HASH_LENGTH;
+			length = HASH_LENGTH;
+			for (int i = 0; i < HASH_LENGTH; ++i) {
+				buffer[i] = HEX_DIGITS[(int) (hash >>> (60 - i * 4)) & 0xf];
+			}
+		}
+	}
+
+	/**
+	 * 次のトークンを切り出す.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	boolean incrementToken() throws IOException {
+		if (!stats.isTimed()) {
+			return countToken();
+		}
+		long startTime = System.nanoTime();
+		try {
+			return countToken();
+		} finally {
+			stats.nanos += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * 次のトークンを切り出し, 統計に数える.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean countToken() throws IOException {
+		boolean hasToken;
+		if (stackUnhyphenated) {
+			hasToken = nextStackedToken();
+		} else {
+			hasToken = nextUnstackedToken();
+		}
+		if (hasToken) {
+			stats.countToken(termType);
+		} else if (!isEndCounted) {
+			// 入力の終わりの後にも呼ばれることがあるので1度だけ数える
+			isEndCounted = true;
+			++stats.documents;
+			stats.chars += window.getLoaded();
+		}
+		return hasToken;
+	}
+
+	/**
+	 * ハイフン抜きのTokenを重ねずに, bigramMode に従って次のトークンを切り出す.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean nextUnstackedToken() throws IOException {
+		if (dictionary != null) {
+			return nextDictionaryToken();
+		}
+		if (bigramMode == BigramMode.MINIMAL) {
+			return nextMinimalToken();
+		}
+		return nextToken();
+	}
+
+	/**
+	 * ハイフン抜きのTokenを, 結合した最初の部分と同じ位置 (位置の増分 0) に重ねて
+	 * 次のトークンを切り出す.
+	 * ハイフン抜きのTokenは連結の部分を全て切り出した後に作られるので,
+	 * 連結の途中では部分を保留し, ハイフン抜きのTokenが揃ってから startOffset の順に
+	 * 並べ替えて返す. 保留したTokenのうち, まだ結合の最初になりうる候補より前にあるものは
+	 * 並べ替えが済んでいるので先に返す.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean nextStackedToken() throws IOException {
+		while (true) {
+			if (stackedHead < stackedCount) {
+				int i = stackedOrder[stackedHead];
+				// 前方の n-gram が残っていれば, 元の Token の後に並べるため先に取り出す
+				if (isStackEnded || edgeLength > edgeMaxLength
+						&& (candidateCount == 0
+						|| stackedQueue.getStart(i) < candidateStarts[0])) {
+					++stackedHead;
+					setToken(stackedQueue.getChars(), stackedQueue
+							.getCharStart(i), stackedQueue.getLength(i),
+							stackedQueue.getStart(i), stackedQueue.getEnd(i),
+							stackedQueue.getType(i));
+					positionIncrement = stackedQueue.getPositionIncrement(i);
+					return true;
+				}
+			} else if (isStackEnded) {
+				return false;
+			}
+			if (!nextUnstackedToken()) {
+				isStackEnded = true;
+				continue;
+			}
+			if (stackedHead == stackedCount) {
+				stackedQueue.clear();
+				stackedCount = 0;
+				stackedHead = 0;
+				if (candidateCount == 0 && !hasOrphanedToken()
+						&& termType != TYPE_UNHYPHENATED) {
+					// ハイフンの連結の外なので並べ替えない.
+					// 辞書の先読みで後回しになったハイフン抜きのTokenも
+					// 保留を通して位置の増分を 0 にする
+					return true;
+				}
+			}
+			addStackedToken(termBuffer, termOffset, termLength, termStart,
+					termEnd, termType, termType == TYPE_UNHYPHENATED ? 0
+							: positionIncrement);
+			// 前方の n-gram が残っていれば, 元の Token に続けるため後で取り出す
+			while (edgeLength > edgeMaxLength && hasOrphanedToken()) {
+				addOrphanedToken(unhyphenatedQueue.poll());
+			}
+		}
+	}
+
+	/**
+	 * ハイフン抜きのTokenのキューに, 連結が '-' の後で途切れたために
+	 * 返されないまま残ったTokenがあるかどうか. 残ったTokenは候補より前から始まる.
+	 * 重ねない場合は後で別の連結の終わりか入力の終わりで返されるが,
+	 * 重ねる場合は結合の最初の部分を保留しているうちに取り出す.
+	 *
+	 * @return 残ったTokenがあればtrue
+	 */
+	private boolean hasOrphanedToken() {
+		if (unhyphenatedQueue.isEmpty()) {
+			return false;
+		}
+		return candidateCount == 0
+				|| unhyphenatedQueue.getStart(unhyphenatedQueue.peek()) < candidateStarts[0];
+	}
+
+	/**
+	 * ハイフン抜きのTokenのキューに残ったTokenを保留する. nextToken() を通らないので,
+	 * 前方の n-gram もここで扱う. 重ねない場合と同じTokenを返すように,
+	 * キューに残っているものとして後の連結の切り出しを続ける.
+	 *
+	 * @param i
+	 *            キュー上の位置
+	 */
+	private void addOrphanedToken(final int i) {
+		char[] term = unhyphenatedQueue.getChars();
+		int off = unhyphenatedQueue.getCharStart(i);
+		int len = unhyphenatedQueue.getLength(i);
+		int tokenStart = unhyphenatedQueue.getStart(i);
+		int tokenEnd = unhyphenatedQueue.getEnd(i);
+		isOrphanTaken = true;
+		if (edgeNGramMode == EdgeNGramMode.QUERY) {
+			len = Math.min(len, maxGramSize);
+		}
+		addStackedToken(term, off, len, tokenStart, tokenEnd,
+				TYPE_UNHYPHENATED, 0);
+		if (edgeNGramMode == EdgeNGramMode.INDEX) {
+			int n = Math.min(len - 1, maxGramSize);
+			for (int gram = minGramSize; gram <= n; ++gram) {
+				addStackedToken(term, off, gram, tokenStart, tokenEnd,
+						TYPE_EDGE_NGRAM, 0);
+			}
+		}
+	}
+
+	/**
+	 * Tokenを, startOffset の順を保つように保留する.
+	 * startOffset が同じ場合は後に置くので, ハイフン抜きのTokenは結合の最初の部分の後に並ぶ.
+	 *
+	 * @param term
+	 *            文字列バッファ
+	 * @param off
+	 *            バッファ上の開始位置
+	 * @param len
+	 *            文字列長
+	 * @param tokenStart
+	 *            開始位置
+	 * @param tokenEnd
+	 *            終了位置
+	 * @param type
+	 *            種類
+	 * @param increment
+	 *            位置の増分
+	 */
+	private void addStackedToken(final char[] term, final int off,
+			final int len, final int tokenStart, final int tokenEnd,
+			final int type, final int increment) {
+		int i = stackedQueue.add(term, off, len, tokenStart, tokenEnd, type,
+				increment);
+		if (stackedCount == stackedOrder.length) {
+			stackedOrder = Arrays.copyOf(stackedOrder, stackedCount * 2);
+		}
+		int j = stackedCount++;
+		while (j > stackedHead
+				&& stackedQueue.getStart(stackedOrder[j - 1]) > tokenStart) {
+			stackedOrder[j] = stackedOrder[j - 1];
+			--j;
+		}
+		stackedOrder[j] = i;
+	}
+
+	/**
+	 * 辞書を使って次のトークンを切り出す. bi-gram の連続を辞書の最長の語の文字数だけ
+	 * 先読みして保持し, 先頭の bi-gram から始まる語を引く.
+	 * BigramMode.ALL (索引時) では全ての bi-gram に加えて, 各 bi-gram から始まる全ての語を
+	 * その bi-gram と同じ位置に重ねて返す.
+	 * BigramMode.MINIMAL (検索時) では最長一致の語と, 語で覆えない文字を覆う bi-gram を返す.
+	 * 位置は bi-gram の位置に揃えるので, ALL で索引したフィールドをフレーズ検索できる.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean nextDictionaryToken() throws IOException {
+		while (true) {
+			if (isRunShiftPending) {
+				isRunShiftPending = false;
+				shiftRun();
+			}
+			if (runCount > 0) {
+				if (isRunEnded || runCount >= lookahead) {
+					boolean hasToken;
+					if (bigramMode == BigramMode.MINIMAL) {
+						hasToken = coverRunHead();
+					} else {
+						hasToken = stackRunHead();
+					}
+					if (hasToken) {
+						return true;
+					}
+					continue;
+				}
+			} else if (isRunEnded) {
+				// 連続を返し終えたので, 後回しにしたTokenに進む
+				isRunEnded = false;
+				if (bigramMode == BigramMode.MINIMAL) {
+					positionGap = runHead - lastRunPosition - 1;
+				}
+				if (pendingLength < 0) {
+					return false;
+				}
+				if (isPendingBigram) {
+					startRun(pendingTerm, 0, pendingStart, pendingEnd);
+					pendingLength = -1;
+					continue;
+				}
+				setToken(pendingTerm, 0, pendingLength, pendingStart,
+						pendingEnd, pendingType);
+				positionIncrement += positionGap;
+				positionGap = 0;
+				pendingLength = -1;
+				return true;
+			}
+			boolean hasToken = nextToken();
+			if (hasToken && isBigram) {
+				if (runCount == 0) {
+					startRun(termBuffer, termOffset, termStart, termEnd);
+					continue;
+				}
+				if (isStartedAtFirstChar) {
+					// 同じ連続の続き
+					runChars[runCount + 1] = termBuffer[termOffset + 1];
+					runStarts[runCount] = termStart;
+					runEnds[runCount] = termEnd;
+					++runCount;
+					continue;
+				}
+			}
+			if (runCount == 0) {
+				return hasToken;
+			}
+			// 連続の終わり
+			isRunEnded = true;
+			if (hasToken) {
+				pendingLength = termLength;
+				System.arraycopy(termBuffer, termOffset, pendingTerm, 0,
+						pendingLength);
+				pendingStart = termStart;
+				pendingEnd = termEnd;
+				pendingType = termType;
+				isPendingBigram = isBigram;
+			} else {
+				pendingLength = -1;
+			}
+		}
+	}
+
+	/**
+	 * bi-gram の連続を保持し始める.
+	 *
+	 * @param term
+	 *            最初の bi-gram の文字列バッファ
+	 * @param off
+	 *            バッファ上の開始位置
+	 * @param bigramStart
+	 *            開始位置
+	 * @param bigramEnd
+	 *            終了位置
+	 */
+	private void startRun(final char[] term, final int off,
+			final int bigramStart, final int bigramEnd) {
+		runChars[0] = term[off];
+		runChars[1] = term[off + 1];
+		runStarts[0] = bigramStart;
+		runEnds[0] = bigramEnd;
+		runCount = 1;
+		runHead = 0;
+		coveredEnd = 0;
+		lastRunPosition = -1;
+	}
+
+	/**
+	 * 保持している連続の先頭の bi-gram を捨てる.
+	 */
+	private void shiftRun() {
+		System.arraycopy(runChars, 1, runChars, 0, runCount);
+		System.arraycopy(runStarts, 1, runStarts, 0, runCount - 1);
+		System.arraycopy(runEnds, 1, runEnds, 0, runCount - 1);
+		--runCount;
+		++runHead;
+	}
+
+	/**
+	 * BigramMode.ALL で, 先頭の bi-gram と, そこから始まる語を順に返す.
+	 *
+	 * @return トークン情報を設定したらtrue. 先頭の bi-gram を返し終えたら false
+	 */
+	private boolean stackRunHead() {
+		if (!isRunHeadReturned) {
+			isRunHeadReturned = true;
+			wordCount = dictionary.matchPrefixes(runChars, 0, runCount + 1,
+					wordLengths);
+			wordIndex = 0;
+			setToken(runChars, 0, 2, runStarts[0], runEnds[0], TYPE_DOUBLE);
+			return true;
+		}
+		if (wordIndex < wordCount) {
+			int wordLength = wordLengths[wordIndex++];
+			setToken(runChars, 0, wordLength, runStarts[0],
+					runEnds[wordLength - 2], TYPE_WORD);
+			positionIncrement = 0;
+			return true;
+		}
+		isRunHeadReturned = false;
+		isRunShiftPending = true;
+		return false;
+	}
+
+	/**
+	 * BigramMode.MINIMAL で, 先頭の bi-gram の位置から始まるTokenを返す.
+	 * まだ覆っていない文字から始まる最長の語があれば語を, なければ bi-gram を返す.
+	 * bi-gram の次の文字から語が始まる場合は, その語を次に返せるようにする.
+	 * 語で覆ったあとに連続の最後の1文字だけが残った場合は, 最後の bi-gram で覆う.
+	 *
+	 * @return トークン情報を設定したらtrue
+	 */
+	private boolean coverRunHead() {
+		int position = runHead;
+		int length = 0;
+		int type = TYPE_DOUBLE;
+		if (position >= coveredEnd) {
+			length = dictionary.matchLongest(runChars, 0, runCount + 1);
+			if (length > 0) {
+				type = TYPE_WORD;
+				coveredEnd = position + length;
+			} else {
+				length = 2;
+				if (dictionary.matchLongest(runChars, 1, runCount) > 0) {
+					coveredEnd = position + 1;
+				} else {
+					coveredEnd = position + 2;
+				}
+			}
+		} else if (isRunEnded && runCount == 1 && coveredEnd == position + 1) {
+			length = 2;
+			coveredEnd = position + 2;
+		}
+		isRunShiftPending = true;
+		if (length == 0) {
+			return false;
+		}
+		setToken(runChars, 0, length, runStarts[0], runEnds[length - 2], type);
+		positionIncrement = position - lastRunPosition + positionGap;
+		positionGap = 0;
+		lastRunPosition = position;
+		return true;
+	}
+
+	/**
+	 * BigramMode.MINIMAL で次のトークンを切り出す.
+	 * 連続の中の偶数番目の bi-gram だけを返し, 奇数番目の bi-gram は保留する.
+	 * 保留した bi-gram は, それが連続の最後の bi-gram だった場合にだけ
+	 * 末尾の文字を覆うために返す. 連続の終わりは次のTokenを切り出して分かるので,
+	 * その場合は次のTokenを後回しにする.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean nextMinimalToken() throws IOException {
+		if (pendingLength >= 0) {
+			setToken(pendingTerm, 0, pendingLength, pendingStart, pendingEnd,
+					pendingType);
+			pendingLength = -1;
+			return true;
+		}
+		while (true) {
+			boolean hasToken = nextToken();
+			if (!hasToken || !isBigram || !isStartedAtFirstChar
+					|| bigramCount == 0) {
+				// 連続の終わり
+				bigramCount = 0;
+				if (hasHeldBigram) {
+					hasHeldBigram = false;
+					if (hasToken) {
+						pendingLength = termLength;
+						System.arraycopy(termBuffer, termOffset, pendingTerm, 0,
+								pendingLength);
+						pendingStart = termStart;
+						pendingEnd = termEnd;
+						pendingType = termType;
+						// 後回しにした bi-gram は新しい連続の最初の bi-gram
+						bigramCount = isBigram ? 1 : 0;
+					}
+					setToken(heldBigram, 0, 2, heldBigramStart, heldBigramEnd,
+							TYPE_DOUBLE);
+					return true;
+				}
+				if (!hasToken) {
+					return false;
+				}
+			}
+			if (!isBigram) {
+				return true;
+			}
+			int index = bigramCount++;
+			if ((index & 1) == 0) {
+				// 保留した bi-gram はこの bi-gram と前の bi-gram で覆われる
+				hasHeldBigram = false;
+				positionIncrement = index == 0 ? 1 : 2;
+				return true;
+			}
+			System.arraycopy(termBuffer, termOffset, heldBigram, 0, 2);
+			heldBigramStart = termStart;
+			heldBigramEnd = termEnd;
+			hasHeldBigram = true;
+		}
+	}
+
+	/**
+	 * 次のトークンを切り出す. LongTokenMode.DROP で捨てたトークンは飛ばす.
+	 * EdgeNGramMode.INDEX では, ASCII文字列の Token の後に前方の n-gram を短い順に
+	 * 同じ位置に重ねて返す. EdgeNGramMode.QUERY では, ASCII文字列の Token を
+	 * maxGramSize 文字までに切り詰める.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean nextToken() throws IOException {
+		if (edgeLength <= edgeMaxLength) {
+			setToken(edgeBuffer, 0, edgeLength, edgeStart, edgeEnd,
+					TYPE_EDGE_NGRAM);
+			positionIncrement = 0;
+			isBigram = false;
+			++edgeLength;
+			return true;
+		}
+		while (scanToken()) {
+			if (!isDropped) {
+				if (edgeNGramMode != EdgeNGramMode.NONE && isEdgeNGramSource()) {
+					prepareEdgeNGram();
+				}
+				return true;
+			}
+			isDropped = false;
+		}
+		return false;
+	}
+
+	/**
+	 * 切り出したTokenが前方の n-gram の元になるかどうか. ハッシュ値は前方一致に使えないので除く.
+	 *
+	 * @return 元になるならtrue
+	 */
+	private boolean isEdgeNGramSource() {
+		if (termType == TYPE_UNHYPHENATED) {
+			return true;
+		}
+		return termType == TYPE_SINGLE && !isHashed;
+	}
+
+	/**
+	 * 切り出したTokenの前方の n-gram を用意する. EdgeNGramMode.QUERY では Token を切り詰める.
+	 * Token 自身より短いものだけを切り出すので, Token が maxGramSize 以下なら
+	 * Token 自身が最長の n-gram を兼ねる.
+	 */
+	private void prepareEdgeNGram() {
+		if (edgeNGramMode == EdgeNGramMode.QUERY) {
+			if (termLength > maxGramSize) {
+				termLength = maxGramSize;
+			}
+			return;
+		}
+		int n = Math.min(termLength - 1, maxGramSize);
+		if (n < minGramSize) {
+			return;
+		}
+		System.arraycopy(termBuffer, termOffset, edgeBuffer, 0, n);
+		edgeLength = minGramSize;
+		edgeMaxLength = n;
+		edgeStart = termStart;
+		edgeEnd = termEnd;
+	}
+
+	/**
+	 * 次のトークンを切り出す.
+	 *
+	 * @return トークン情報があればtrue
+	 *
+	 * @throws IOException I/O例外
+	 */
+	private boolean scanToken() throws IOException {
+
+		isBigram = false;
+
+		if (hyphenState == HyphenState.RETURN) {
+			// ハイフン除去トークンの返却ステータスの場合は,
+			// すべてのハイフン除去トークンを返却するまで返却を続ける
+			if (nextUnhyphenatedToken()) {
+				return true;
+			}
+		}
+
+		length = 0;
+		extraLength = 0;
+		isHashed = false;
+		start = offset;
+		charType = lastCharType;
+		concatCharCount = 0;
+		tokenType = TYPE_NULL;
+		boolean isFirstChar = true;
+
+		do {
+			// 現在の文字でいわゆる半角カナの濁点・半濁点を結合した場合にのみtrue
+			isHankakuMerged = false;
+			prevCharType = charType;
+			int c = scanChar(window.read());
+
+			// 現在のトークンタイプによって分岐
+			if (tokenType == TYPE_NULL) {
+				// 現在スキャン中のトークンなし。
+				if (c < 0) {
+					// end of input
+					if (!unhyphenatedQueue.isEmpty()) {
+						hyphenState = HyphenState.RETURN;
+						return nextUnhyphenatedToken();
+					}
+					return false;
+				}
+
+				// 文字種によって、トークンタイプを決定
+				// 記号は読み飛ばす
+				if (charType == CHARTYPE_SINGLE) {
+					// '...-a'
+					if (hyphenState == HyphenState.NORMAL_HYPHEN
+							|| hyphenState == HyphenState.HYPHEN_HYPHEN) {
+						hyphenState = HyphenState.HYPHEN;
+					}
+					start = offset - 1;
+					length = 1;
+					buffer[0] = (char) c;
+					tokenType = TYPE_SINGLE;
+				} else if (charType == CHARTYPE_DOUBLE) {
+					resetHyphenState();
+					isStartedAtFirstChar = isFirstChar;
+					start = offset - 1;
+					length = 1;
+					buffer[0] = (char) c;
+					tokenType = TYPE_DOUBLE;
+				} else if (c == '-') {
+					if (hyphenState == HyphenState.HYPHEN_HYPHEN) {
+						// '...-a--' の場合は直前までを返す
+						if (nextUnhyphenatedToken()) {
+							return true;
+						}
+					} else if (hyphenState == HyphenState.NORMAL_HYPHEN) {
+						// '..--' の場合(1度目のハイフン出現で連続)は, reset
+						resetHyphenState();
+					}
+				} else {
+					resetHyphenState();
+				}
+			} else if (tokenType == TYPE_SINGLE) {
+				if (processTokenTypeSingle(c)) {
+					break;
+				}
+			} else if (tokenType == TYPE_DOUBLE) {
+				if (processTokenTypeDouble(c)) {
+					break;
+				}
+			}
+			isFirstChar = false;
+
+		} while (true);
+
+		lastCharType = charType;
+		isBigram = tokenType == TYPE_DOUBLE && length == 2;
+
+		setToken(buffer, 0, length, start, start + length + extraLength
+				+ concatCharCount + hankakuOffset, tokenType);
+
+		offset += hankakuOffset;
+
+		// 最後の文字でいわゆる半角カナの濁点・半濁点が結合されている場合は
+		// オフセットを残す
+		if (isHankakuMerged) {
+			hankakuOffset = 1;
+		} else {
+			hankakuOffset = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * ハイフン抜きの文字列を追加する. 前の候補と結合した文字列を
+	 * unhyphenateMode に従ってキューに入れる.
+	 * キューはハイフンの連結が終わるまで取り出さないので, FULL では
+	 * この連結の結合を入れ直して最後のものだけを残す. キューには '-' の後で
+	 * 途切れた前の連結の結合も残っていることがあるので, それらは捨てない.
+	 *
+	 * @param buffer
+	 *            文字列バッファ
+	 * @param length
+	 *            文字列長
+	 * @param start
+	 *            TokenのstartOffset
+	 */
+	private void addUnhyphenatedBuffer(final char[] buffer, final int length,
+			final int start) {
+
+		int position = candidateBufferLength;
+		System.arraycopy(buffer, 0, candidateBuffer, position, length);
+		candidateBufferLength += length;
+
+		int from = 0;
+		int to = candidateCount;
+		if (unhyphenateMode == UnhyphenateMode.NONE) {
+			to = 0;
+		} else if (unhyphenateMode == UnhyphenateMode.FULL) {
+			// この連結の前回の結合は, 最初の候補から始まる末尾のもの
+			if (candidateCount > 1 && !unhyphenatedQueue.isEmpty()
+					&& unhyphenatedQueue.getStart(unhyphenatedQueue
+							.peekLast()) == candidateStarts[0]) {
+				unhyphenatedQueue.removeLast();
+			}
+			to = Math.min(1, candidateCount);
+		} else if (unhyphenateMode == UnhyphenateMode.ADJACENT) {
+			from = Math.max(0, candidateCount - 1);
+		}
+		for (int i = from; i < to; ++i) {
+			// 候補 i から今回の文字列までを結合したもの.
+			// endOffset は間のハイフンの分 (candidateCount - i) を加える
+			int joinedLength = candidateBufferLength - candidatePositions[i];
+			unhyphenatedQueue.add(candidateBuffer, candidatePositions[i],
+					joinedLength, candidateStarts[i], candidateStarts[i]
+							+ joinedLength + candidateCount - i);
+		}
+
+		candidatePositions[candidateCount] = position;
+		candidateStarts[candidateCount] = start;
+		++candidateCount;
+
+	}
+}
@@ -0,0 +1,42 @@
+package jp.ecnavi.lucene.analysis;
+
+/**
+ * ECNaviTokenizer がASCII文字列の Token から前方の n-gram を扱う方法.
+ * 索引時に前方の n-gram を切り出しておけば, 型番などの前方一致の検索を
+ * PrefixQuery で語を列挙せずに1つの語の検索で行なえる.
+ */
+public enum EdgeNGramMode {
+    /**
+     * 前方の n-gram を扱わない.
+     */
+    NONE,
+    /**
+     * 索引時に使う. SINGLE と UNHYPHENATED の Token の後に, 先頭から minGramSize 文字以上
+     * maxGramSize 文字以下の部分を同じ位置に重ねて切り出す.
+     */
+    INDEX,
+    /**
+     * 検索時に使う. SINGLE と UNHYPHENATED の Token が maxGramSize より長い場合は
+     * 先頭の maxGramSize 文字だけにし, 索引時に切り出した前方の n-gram に一致させる.
+     */
+    QUERY;
+
+    /**
+     * 設定値の文字列から EdgeNGramMode を得る.
+     *
+     * @param value 設定値. "none", "index", "query" のいずれか. null の場合は NONE
+     * @return EdgeNGramMode
+     * @throws IllegalArgumentException 不明な値の場合
+     */
+    public static EdgeNGramMode parse(final String value) {
+        if (value == null) {
+            return NONE;
+        }
+        for (EdgeNGramMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("unknown edgeNGram: " + value);
+    }
+}
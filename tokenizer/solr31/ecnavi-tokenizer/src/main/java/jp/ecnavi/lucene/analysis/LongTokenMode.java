@@ -0,0 +1,45 @@
+package jp.ecnavi.lucene.analysis;
+
+/**
+ * ECNaviTokenizer が最大の文字長を超えるASCII文字列を扱う方法.
+ * Base64 やハッシュ値, 長いURLなどは検索に使われず, 固有の語として索引を大きくするだけなので,
+ * 分割する代わりに捨てたり短くしたりできるようにする.
+ */
+public enum LongTokenMode {
+    /**
+     * 最大の文字長ごとに分割し, それぞれを Token とする.
+     */
+    SPLIT,
+    /**
+     * Token を切り出さない.
+     */
+    DROP,
+    /**
+     * 先頭の最大の文字長の分だけを Token とする.
+     */
+    PREFIX,
+    /**
+     * 文字列全体のハッシュ値を16桁の16進数にしたものを Token とする.
+     * 同じ文字列の検索はできるが, 前方一致などはできない.
+     */
+    HASH;
+
+    /**
+     * 設定値の文字列から LongTokenMode を得る.
+     *
+     * @param value 設定値. "split", "drop", "prefix", "hash" のいずれか. null の場合は SPLIT
+     * @return LongTokenMode
+     * @throws IllegalArgumentException 不明な値の場合
+     */
+    public static LongTokenMode parse(final String value) {
+        if (value == null) {
+            return SPLIT;
+        }
+        for (LongTokenMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("unknown longTokenMode: " + value);
+    }
+}
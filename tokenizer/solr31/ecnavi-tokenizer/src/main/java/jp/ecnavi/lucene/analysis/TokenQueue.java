@@ -0,0 +1,247 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Token情報を保持するキュー.
+ * Tokenごとにオブジェクトを作らず, 文字列は共有の char[] に, 位置などは int[] に記録する.
+ * 空になったら先頭から使い直すので, 容量が足りている限り確保は発生しない.
+ */
+final class TokenQueue {
+    /**
+     * Tokenの文字列を連結して保持するバッファ.
+     */
+    private char[] chars;
+    /**
+     * chars の使用済みの長さ.
+     */
+    private int charsLength;
+    /**
+     * 各Tokenの文字列の chars 上の開始位置.
+     */
+    private int[] charStarts;
+    /**
+     * 各Tokenの文字列長.
+     */
+    private int[] lengths;
+    /**
+     * 各TokenのstartOffset.
+     */
+    private int[] starts;
+    /**
+     * 各TokenのendOffset.
+     */
+    private int[] ends;
+    /**
+     * 各Tokenの種類.
+     */
+    private int[] types;
+    /**
+     * 各Tokenの位置の増分.
+     */
+    private int[] positionIncrements;
+    /**
+     * 先頭のTokenの番号.
+     */
+    private int head;
+    /**
+     * 末尾のTokenの次の番号.
+     */
+    private int tail;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param capacity 初期のToken数
+     * @param charCapacity 初期の文字数
+     */
+    TokenQueue(final int capacity, final int charCapacity) {
+        chars = new char[charCapacity];
+        charStarts = new int[capacity];
+        lengths = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        types = new int[capacity];
+        positionIncrements = new int[capacity];
+    }
+
+    /**
+     * Tokenがないかどうか.
+     *
+     * @return Tokenがなければtrue
+     */
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * 全てのTokenを捨てる.
+     */
+    void clear() {
+        head = 0;
+        tail = 0;
+        charsLength = 0;
+    }
+
+    /**
+     * 末尾にTokenを追加する. 種類は 0, 位置の増分は 1 とする.
+     *
+     * @param buffer 文字列バッファ
+     * @param offset バッファのオフセット
+     * @param length 文字列長
+     * @param start TokenのstartOffset
+     * @param end TokenのendOffset
+     * @return 追加したTokenの番号
+     */
+    int add(final char[] buffer, final int offset, final int length,
+            final int start, final int end) {
+        return add(buffer, offset, length, start, end, 0, 1);
+    }
+
+    /**
+     * 末尾にTokenを追加する.
+     *
+     * @param buffer 文字列バッファ
+     * @param offset バッファのオフセット
+     * @param length 文字列長
+     * @param start TokenのstartOffset
+     * @param end TokenのendOffset
+     * @param type Tokenの種類
+     * @param positionIncrement 位置の増分
+     * @return 追加したTokenの番号
+     */
+    int add(final char[] buffer, final int offset, final int length,
+            final int start, final int end, final int type,
+            final int positionIncrement) {
+        if (head == tail) {
+            // 取り出し済みの領域を使い直す
+            clear();
+        }
+        if (tail == starts.length) {
+            int capacity = tail * 2;
+            charStarts = Arrays.copyOf(charStarts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            types = Arrays.copyOf(types, capacity);
+            positionIncrements = Arrays.copyOf(positionIncrements, capacity);
+        }
+        if (charsLength + length > chars.length) {
+            chars = Arrays.copyOf(chars,
+                    Math.max(chars.length * 2, charsLength + length));
+        }
+        System.arraycopy(buffer, offset, chars, charsLength, length);
+        charStarts[tail] = charsLength;
+        lengths[tail] = length;
+        starts[tail] = start;
+        ends[tail] = end;
+        types[tail] = type;
+        positionIncrements[tail] = positionIncrement;
+        charsLength += length;
+        return tail++;
+    }
+
+    /**
+     * 先頭のTokenを取り出す. 取り出したTokenの情報は次の add() まで参照できる.
+     *
+     * @return 取り出したTokenの番号
+     */
+    int poll() {
+        return head++;
+    }
+
+    /**
+     * 末尾のTokenを捨てる. 取り出していないTokenがあるときだけ呼べる.
+     */
+    void removeLast() {
+        --tail;
+        charsLength = charStarts[tail];
+    }
+
+    /**
+     * 末尾のTokenの番号を返す. 取り出していないTokenがあるときだけ呼べる.
+     *
+     * @return 末尾のTokenの番号
+     */
+    int peekLast() {
+        return tail - 1;
+    }
+
+    /**
+     * 先頭のTokenの番号を返す. 取り出さない.
+     *
+     * @return 先頭のTokenの番号
+     */
+    int peek() {
+        return head;
+    }
+
+    /**
+     * Tokenの文字列を保持するバッファを返す.
+     *
+     * @return バッファ
+     */
+    char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * Tokenの文字列のバッファ上の開始位置を返す.
+     *
+     * @param i Tokenの番号
+     * @return 開始位置
+     */
+    int getCharStart(final int i) {
+        return charStarts[i];
+    }
+
+    /**
+     * Tokenの文字列長を返す.
+     *
+     * @param i Tokenの番号
+     * @return 文字列長
+     */
+    int getLength(final int i) {
+        return lengths[i];
+    }
+
+    /**
+     * TokenのstartOffsetを返す.
+     *
+     * @param i Tokenの番号
+     * @return startOffset
+     */
+    int getStart(final int i) {
+        return starts[i];
+    }
+
+    /**
+     * TokenのendOffsetを返す.
+     *
+     * @param i Tokenの番号
+     * @return endOffset
+     */
+    int getEnd(final int i) {
+        return ends[i];
+    }
+
+    /**
+     * Tokenの種類を返す.
+     *
+     * @param i Tokenの番号
+     * @return 種類
+     */
+    int getType(final int i) {
+        return types[i];
+    }
+
+    /**
+     * Tokenの位置の増分を返す.
+     *
+     * @param i Tokenの番号
+     * @return 位置の増分
+     */
+    int getPositionIncrement(final int i) {
+        return positionIncrements[i];
+    }
+}
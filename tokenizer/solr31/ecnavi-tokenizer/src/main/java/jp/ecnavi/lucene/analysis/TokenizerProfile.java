@@ -0,0 +1,466 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Tokenizerの設定を保持する変更不可なクラス.
+ *
+ * Factory の設定(schema.xml の属性)から生成し, 文字タイプと正規化のテーブルも
+ * 生成時に作っておく. 設定で指定されていない項目は Config
+ * (/ECNaviTokenizer.properties) の値を使う.
+ * フィールドの型ごとに Factory が1つずつ持つので, 同じコアでフィールドごとに
+ * 異なる設定を使える.
+ */
+public final class TokenizerProfile {
+    /**
+     * 記号のうちASCIIと同様に扱うもののキー.
+     */
+    public static final String ALLOWED_SIGN = "allowed_sign";
+    /**
+     * かなカナを正規化(大文字化)するかどうかのキー.
+     */
+    public static final String CAPITALIZE_KANA = "capitalize_kana";
+    /**
+     * 前後のかなカナ漢字を連結する文字のキー.
+     */
+    public static final String CONCAT_CHAR = "concat_char";
+    /**
+     * bi-gram の切り出し方のキー.
+     */
+    public static final String BIGRAM_MODE = "bigramMode";
+    /**
+     * ハイフン抜きの Token の切り出し方のキー.
+     */
+    public static final String UNHYPHENATE_MODE = "unhyphenateMode";
+    /**
+     * ハイフンの連結をいくつまで許容するかのキー.
+     */
+    public static final String MAX_HYPHEN = "maxHyphen";
+    /**
+     * ハイフン抜きの Token を開始位置の部分に重ねるかどうかのキー.
+     */
+    public static final String STACK_UNHYPHENATED = "stackUnhyphenated";
+    /**
+     * 最大の文字長を超えるASCII文字列の扱い方のキー.
+     */
+    public static final String LONG_TOKEN_MODE = "longTokenMode";
+    /**
+     * Token の最大の文字長のキー.
+     */
+    public static final String MAX_TOKEN_LENGTH = "maxTokenLength";
+    /**
+     * bi-gram の連続から語を切り出す辞書のファイルのキー.
+     */
+    public static final String DICTIONARY = "dictionary";
+    /**
+     * ASCII文字列の Token から前方の n-gram を扱う方法のキー.
+     */
+    public static final String EDGE_NGRAM = "edgeNGram";
+    /**
+     * 前方の n-gram の最小の文字長のキー.
+     */
+    public static final String MIN_GRAM_SIZE = "minGramSize";
+    /**
+     * 前方の n-gram の最大の文字長のキー.
+     */
+    public static final String MAX_GRAM_SIZE = "maxGramSize";
+
+    /**
+     * ハイフンの連結の数の既定値.
+     */
+    public static final int DEFAULT_MAX_HYPHEN = 5;
+    /**
+     * ハイフンの連結の数の上限. ALL では部分の数の2乗に比例して Token が増えるので抑える.
+     */
+    private static final int MAX_MAX_HYPHEN = 16;
+    /**
+     * Token の最大の文字長の既定値であり上限.
+     */
+    public static final int DEFAULT_MAX_TOKEN_LENGTH = 255;
+    /**
+     * 前方の n-gram の最小の文字長の既定値.
+     */
+    public static final int DEFAULT_MIN_GRAM_SIZE = 1;
+    /**
+     * 前方の n-gram の最大の文字長の既定値.
+     */
+    public static final int DEFAULT_MAX_GRAM_SIZE = 8;
+
+    /**
+     * Config の値だけから生成したインスタンス.
+     */
+    private static final TokenizerProfile DEFAULT = getInstance(Collections
+            .<String, String> emptyMap());
+
+    /**
+     * かなカナを正規化(大文字化)するかどうか.
+     */
+    private final boolean capitalizeKana;
+    /**
+     * bi-gram の切り出し方.
+     */
+    private final BigramMode bigramMode;
+    /**
+     * ハイフン抜きの Token の切り出し方.
+     */
+    private final UnhyphenateMode unhyphenateMode;
+    /**
+     * ハイフンの連結をいくつまで許容するか.
+     */
+    private final int maxHyphen;
+    /**
+     * ハイフン抜きの Token を開始位置の部分に重ねるかどうか.
+     */
+    private final boolean stackUnhyphenated;
+    /**
+     * 最大の文字長を超えるASCII文字列の扱い方.
+     */
+    private final LongTokenMode longTokenMode;
+    /**
+     * Token の最大の文字長.
+     */
+    private final int maxTokenLength;
+    /**
+     * bi-gram の連続から語を切り出す辞書. 使わない場合は null.
+     */
+    private final DoubleArrayTrie dictionary;
+    /**
+     * ASCII文字列の Token から前方の n-gram を扱う方法.
+     */
+    private final EdgeNGramMode edgeNGramMode;
+    /**
+     * 前方の n-gram の最小の文字長.
+     */
+    private final int minGramSize;
+    /**
+     * 前方の n-gram の最大の文字長.
+     */
+    private final int maxGramSize;
+    /**
+     * 文字タイプのテーブル.
+     */
+    private final CharTypeTable charTypes;
+    /**
+     * 文字の正規化テーブル.
+     */
+    private final CharFoldTable folds;
+
+    /**
+     * Config の値だけから生成したインスタンスを返す.
+     *
+     * @return インスタンス
+     */
+    public static TokenizerProfile getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 設定からインスタンスを生成し返す.
+     *
+     * @param args 設定. 指定されていない項目は Config の値を使う.
+     *            辞書のファイルは作業ディレクトリからの相対パスとなる
+     * @return 新しいインスタンス
+     * @throws IllegalArgumentException 設定値が不正な場合, 辞書を読めない場合
+     */
+    public static TokenizerProfile getInstance(final Map<String, String> args) {
+        String allowedSign = get(args, ALLOWED_SIGN, "+_#");
+        String concatChars = get(args, CONCAT_CHAR, "・＝=☆★･");
+        boolean capitalizeKana = get(args, CAPITALIZE_KANA, "true").equals(
+                "true");
+        BigramMode bigramMode = BigramMode.parse(args.get(BIGRAM_MODE));
+        UnhyphenateMode unhyphenateMode = UnhyphenateMode.parse(args
+                .get(UNHYPHENATE_MODE));
+        int maxHyphen = parseInt(args, MAX_HYPHEN, DEFAULT_MAX_HYPHEN, 1,
+                MAX_MAX_HYPHEN);
+        boolean stackUnhyphenated = parseBoolean(args, STACK_UNHYPHENATED);
+        LongTokenMode longTokenMode = LongTokenMode.parse(args
+                .get(LONG_TOKEN_MODE));
+        int maxTokenLength = parseInt(args, MAX_TOKEN_LENGTH,
+                DEFAULT_MAX_TOKEN_LENGTH, 1, DEFAULT_MAX_TOKEN_LENGTH);
+        DoubleArrayTrie dictionary = loadDictionary(args.get(DICTIONARY));
+        EdgeNGramMode edgeNGramMode = EdgeNGramMode.parse(args
+                .get(EDGE_NGRAM));
+        int minGramSize = parseInt(args, MIN_GRAM_SIZE, DEFAULT_MIN_GRAM_SIZE,
+                1, DEFAULT_MAX_TOKEN_LENGTH);
+        int maxGramSize = parseInt(args, MAX_GRAM_SIZE, DEFAULT_MAX_GRAM_SIZE,
+                1, DEFAULT_MAX_TOKEN_LENGTH);
+        if (minGramSize > maxGramSize) {
+            throw new IllegalArgumentException(MIN_GRAM_SIZE + " must not be"
+                    + " greater than " + MAX_GRAM_SIZE + ": " + minGramSize
+                    + " > " + maxGramSize);
+        }
+        CharTypeTable charTypes = CharTypeTable.getInstance(SignTable
+                .getInstance(allowedSign), concatChars);
+        return new TokenizerProfile(capitalizeKana, bigramMode,
+                unhyphenateMode, maxHyphen, stackUnhyphenated, longTokenMode,
+                maxTokenLength, dictionary, edgeNGramMode, minGramSize,
+                maxGramSize, charTypes, CharFoldTable.getInstance(charTypes,
+                        capitalizeKana));
+    }
+
+    /**
+     * 辞書を読み込む.
+     *
+     * @param path 辞書のファイル. 指定されていない場合は null
+     * @return 辞書. 指定されていない場合は null
+     * @throws IllegalArgumentException 辞書を読めない場合
+     */
+    private static DoubleArrayTrie loadDictionary(final String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return DoubleArrayTrie.load(new File(path.trim()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot read dictionary: "
+                    + path, e);
+        }
+    }
+
+    /**
+     * 整数の設定を取得する.
+     *
+     * @param args 設定
+     * @param key 設定のキー
+     * @param def 設定にない場合の値
+     * @param min 最小値
+     * @param max 最大値
+     * @return キーに対応する設定
+     * @throws IllegalArgumentException 整数でないか範囲外の場合
+     */
+    private static int parseInt(final Map<String, String> args,
+            final String key, final int def, final int min, final int max) {
+        String value = args.get(key);
+        if (value == null) {
+            return def;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: "
+                    + value);
+        }
+        if (n < min || n > max) {
+            throw new IllegalArgumentException(key + " must be between " + min
+                    + " and " + max + ": " + value);
+        }
+        return n;
+    }
+
+    /**
+     * 真偽値の設定を取得する. 設定にない場合は false.
+     *
+     * @param args 設定
+     * @param key 設定のキー
+     * @return キーに対応する設定
+     * @throws IllegalArgumentException true でも false でもない場合
+     */
+    private static boolean parseBoolean(final Map<String, String> args,
+            final String key) {
+        String value = args.get(key);
+        if (value == null || value.trim().equals("false")) {
+            return false;
+        }
+        if (value.trim().equals("true")) {
+            return true;
+        }
+        throw new IllegalArgumentException(key + " must be true or false: "
+                + value);
+    }
+
+    /**
+     * 設定を取得する. 設定にない場合は Config の値を使う.
+     *
+     * @param args 設定
+     * @param key 設定のキー
+     * @param def Config にもない場合のデフォルト値
+     * @return キーに対応する設定
+     */
+    private static String get(final Map<String, String> args,
+            final String key, final String def) {
+        String value = args.get(key);
+        if (value == null) {
+            return Config.getInstance().get(key, def);
+        }
+        return value;
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param capitalizeKana かなカナを正規化(大文字化)するかどうか
+     * @param bigramMode bi-gram の切り出し方
+     * @param unhyphenateMode ハイフン抜きの Token の切り出し方
+     * @param maxHyphen ハイフンの連結をいくつまで許容するか
+     * @param stackUnhyphenated ハイフン抜きの Token を開始位置の部分に重ねるかどうか
+     * @param longTokenMode 最大の文字長を超えるASCII文字列の扱い方
+     * @param maxTokenLength Token の最大の文字長
+     * @param dictionary bi-gram の連続から語を切り出す辞書
+     * @param edgeNGramMode ASCII文字列の Token から前方の n-gram を扱う方法
+     * @param minGramSize 前方の n-gram の最小の文字長
+     * @param maxGramSize 前方の n-gram の最大の文字長
+     * @param charTypes 文字タイプのテーブル
+     * @param folds 文字の正規化テーブル
+     */
+    private TokenizerProfile(final boolean capitalizeKana,
+            final BigramMode bigramMode, final UnhyphenateMode unhyphenateMode,
+            final int maxHyphen, final boolean stackUnhyphenated,
+            final LongTokenMode longTokenMode, final int maxTokenLength,
+            final DoubleArrayTrie dictionary,
+            final EdgeNGramMode edgeNGramMode, final int minGramSize,
+            final int maxGramSize, final CharTypeTable charTypes,
+            final CharFoldTable folds) {
+        this.capitalizeKana = capitalizeKana;
+        this.bigramMode = bigramMode;
+        this.unhyphenateMode = unhyphenateMode;
+        this.maxHyphen = maxHyphen;
+        this.stackUnhyphenated = stackUnhyphenated;
+        this.longTokenMode = longTokenMode;
+        this.maxTokenLength = maxTokenLength;
+        this.dictionary = dictionary;
+        this.edgeNGramMode = edgeNGramMode;
+        this.minGramSize = minGramSize;
+        this.maxGramSize = maxGramSize;
+        this.charTypes = charTypes;
+        this.folds = folds;
+    }
+
+    /**
+     * かなカナの正規化だけを変えたインスタンスを返す. 文字タイプのテーブルは共有する.
+     *
+     * @param doCapitalizeKana かなカナを正規化(大文字化)するかどうか
+     * @return インスタンス
+     */
+    public TokenizerProfile withCapitalizeKana(final boolean doCapitalizeKana) {
+        if (doCapitalizeKana == capitalizeKana) {
+            return this;
+        }
+        return new TokenizerProfile(doCapitalizeKana, bigramMode,
+                unhyphenateMode, maxHyphen, stackUnhyphenated, longTokenMode,
+                maxTokenLength, dictionary, edgeNGramMode, minGramSize,
+                maxGramSize, charTypes, CharFoldTable.getInstance(charTypes,
+                        doCapitalizeKana));
+    }
+
+    /**
+     * かなカナを正規化(大文字化)するかどうか.
+     *
+     * @return 正規化するならtrue
+     */
+    public boolean isCapitalizeKana() {
+        return capitalizeKana;
+    }
+
+    /**
+     * bi-gram の切り出し方を返す.
+     *
+     * @return bi-gram の切り出し方
+     */
+    public BigramMode getBigramMode() {
+        return bigramMode;
+    }
+
+    /**
+     * ハイフン抜きの Token の切り出し方を返す.
+     *
+     * @return ハイフン抜きの Token の切り出し方
+     */
+    public UnhyphenateMode getUnhyphenateMode() {
+        return unhyphenateMode;
+    }
+
+    /**
+     * ハイフンの連結をいくつまで許容するかを返す. ハイフンの数であって,
+     * 連結される部分の数は +1 となる.
+     *
+     * @return ハイフンの数
+     */
+    public int getMaxHyphen() {
+        return maxHyphen;
+    }
+
+    /**
+     * ハイフン抜きの Token を, 結合した最初の部分と同じ位置に重ねるかどうか.
+     *
+     * @return 重ねるならtrue
+     */
+    public boolean isStackUnhyphenated() {
+        return stackUnhyphenated;
+    }
+
+    /**
+     * 最大の文字長を超えるASCII文字列の扱い方を返す.
+     *
+     * @return 最大の文字長を超えるASCII文字列の扱い方
+     */
+    public LongTokenMode getLongTokenMode() {
+        return longTokenMode;
+    }
+
+    /**
+     * Token の最大の文字長を返す.
+     *
+     * @return 文字長
+     */
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * bi-gram の連続から語を切り出す辞書を返す.
+     *
+     * @return 辞書. 使わない場合は null
+     */
+    public DoubleArrayTrie getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * ASCII文字列の Token から前方の n-gram を扱う方法を返す.
+     *
+     * @return 前方の n-gram を扱う方法
+     */
+    public EdgeNGramMode getEdgeNGramMode() {
+        return edgeNGramMode;
+    }
+
+    /**
+     * 前方の n-gram の最小の文字長を返す.
+     *
+     * @return 文字長
+     */
+    public int getMinGramSize() {
+        return minGramSize;
+    }
+
+    /**
+     * 前方の n-gram の最大の文字長を返す.
+     *
+     * @return 文字長
+     */
+    public int getMaxGramSize() {
+        return maxGramSize;
+    }
+
+    /**
+     * 文字タイプのテーブルを返す.
+     *
+     * @return 文字タイプのテーブル
+     */
+    public CharTypeTable getCharTypes() {
+        return charTypes;
+    }
+
+    /**
+     * 文字の正規化テーブルを返す.
+     *
+     * @return 文字の正規化テーブル
+     */
+    public CharFoldTable getFolds() {
+        return folds;
+    }
+}
@@ -0,0 +1,172 @@
+package jp.ecnavi.lucene.analysis;
+
+/**
+ * 切り出し処理の統計. ECNaviSegmenter が切り出しながら数える.
+ *
+ * 書き込むのは1つのスレッドだけとし, 同期はしない. Solr では Tokenizer が
+ * スレッドごとに使い回されるので, スレッドごとに1つ作って同じスレッドの
+ * Tokenizer で共有すれば, 索引中も競合なしに数えられる.
+ * 他のスレッドから読んだ値は少し古いことがある.
+ */
+public final class TokenizerStats {
+    /**
+     * Tokenの種類ごとの数. ECNaviSegmenter.TYPE_* を添字にする.
+     */
+    private final long[] tokens = new long[6];
+    /**
+     * 入力の終わりまで読んだ文書の数.
+     */
+    long documents;
+    /**
+     * 入力の終わりまで読んだ文書の文字数.
+     */
+    long chars;
+    /**
+     * いわゆる半角カナの濁点・半濁点を結合した数.
+     */
+    long hankakuMerges;
+    /**
+     * ハイフンの連結が MAX_HYPHEN を超えて打ち切られた数.
+     */
+    long hyphenCutoffs;
+    /**
+     * 最大の文字長を超えたASCII文字列の数. LongTokenMode.SPLIT では分割した回数.
+     */
+    long wordSplits;
+    /**
+     * 切り出しにかかった時間(ナノ秒).
+     */
+    long nanos;
+    /**
+     * 切り出しの時間を計るかどうか.
+     */
+    private final boolean timed;
+
+    /**
+     * コンストラクタ. 時間は計らない.
+     */
+    public TokenizerStats() {
+        this(false);
+    }
+
+    /**
+     * コンストラクタ.
+     *
+     * @param timed 切り出しの時間を計るかどうか. Tokenごとに System.nanoTime() を呼ぶ
+     */
+    public TokenizerStats(final boolean timed) {
+        this.timed = timed;
+    }
+
+    /**
+     * 切り出したTokenを数える.
+     *
+     * @param type Tokenの種類
+     */
+    void countToken(final int type) {
+        ++tokens[type];
+    }
+
+    /**
+     * 他の統計の値を加える.
+     *
+     * @param other 統計
+     */
+    public void add(final TokenizerStats other) {
+        for (int i = 0; i < tokens.length; ++i) {
+            tokens[i] += other.tokens[i];
+        }
+        documents += other.documents;
+        chars += other.chars;
+        hankakuMerges += other.hankakuMerges;
+        hyphenCutoffs += other.hyphenCutoffs;
+        wordSplits += other.wordSplits;
+        nanos += other.nanos;
+    }
+
+    /**
+     * 切り出しの時間を計るかどうか.
+     *
+     * @return 計るならtrue
+     */
+    public boolean isTimed() {
+        return timed;
+    }
+
+    /**
+     * Tokenの数を返す.
+     *
+     * @param type ECNaviSegmenter.TYPE_SINGLE などのTokenの種類
+     * @return 数
+     */
+    public long getTokens(final int type) {
+        return tokens[type];
+    }
+
+    /**
+     * 全ての種類のTokenの数を返す.
+     *
+     * @return 数
+     */
+    public long getTokens() {
+        long n = 0;
+        for (long t : tokens) {
+            n += t;
+        }
+        return n;
+    }
+
+    /**
+     * 入力の終わりまで読んだ文書の数を返す.
+     *
+     * @return 数
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * 入力の終わりまで読んだ文書の文字数を返す.
+     *
+     * @return 文字数
+     */
+    public long getChars() {
+        return chars;
+    }
+
+    /**
+     * いわゆる半角カナの濁点・半濁点を結合した数を返す.
+     *
+     * @return 数
+     */
+    public long getHankakuMerges() {
+        return hankakuMerges;
+    }
+
+    /**
+     * ハイフンの連結が打ち切られた数を返す.
+     *
+     * @return 数
+     */
+    public long getHyphenCutoffs() {
+        return hyphenCutoffs;
+    }
+
+    /**
+     * 最大の文字長に達したASCII文字列の数を返す. LongTokenMode.SPLIT では分割した回数.
+     *
+     * @return 数
+     */
+    public long getWordSplits() {
+        return wordSplits;
+    }
+
+    /**
+     * 切り出しにかかった時間を返す. 時間を計らない場合は 0.
+     *
+     * @return ナノ秒
+     */
+    public long getNanos() {
+        return nanos;
+    }
+}
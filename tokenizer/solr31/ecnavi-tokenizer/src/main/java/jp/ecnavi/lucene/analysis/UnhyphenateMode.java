@@ -0,0 +1,45 @@
+package jp.ecnavi.lucene.analysis;
+
+/**
+ * ECNaviTokenizer がハイフンで接続されたASCII文字列 (a-b-c) から,
+ * ハイフン抜きで結合した Token (UNHYPHENATED) を切り出す方法.
+ * どの場合もハイフンで区切られた各部分は SINGLE として切り出す.
+ */
+public enum UnhyphenateMode {
+    /**
+     * 連続する部分を結合した全ての組み合わせを切り出す.
+     * a-b-c からは ab, abc, bc を切り出す. 部分の数が n なら n(n-1)/2 個になる.
+     */
+    ALL,
+    /**
+     * 全ての部分を結合したものだけを切り出す. a-b-c からは abc を切り出す.
+     */
+    FULL,
+    /**
+     * 隣り合う2つの部分を結合したものだけを切り出す. a-b-c からは ab, bc を切り出す.
+     */
+    ADJACENT,
+    /**
+     * 結合したものを切り出さない. 検索時に使う.
+     */
+    NONE;
+
+    /**
+     * 設定値の文字列から UnhyphenateMode を得る.
+     *
+     * @param value 設定値. "all", "full", "adjacent", "none" のいずれか. null の場合は ALL
+     * @return UnhyphenateMode
+     * @throws IllegalArgumentException 不明な値の場合
+     */
+    public static UnhyphenateMode parse(final String value) {
+        if (value == null) {
+            return ALL;
+        }
+        for (UnhyphenateMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("unknown unhyphenateMode: " + value);
+    }
+}
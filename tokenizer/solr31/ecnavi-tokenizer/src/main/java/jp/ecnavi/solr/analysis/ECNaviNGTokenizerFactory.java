@@ -0,0 +1,46 @@
+package jp.ecnavi.solr.analysis;
+
+import java.io.Reader;
+import java.util.Map;
+
+import org.apache.solr.analysis.BaseTokenizerFactory;
+
+import jp.ecnavi.lucene.analysis.ECNaviNGTokenizer;
+import jp.ecnavi.lucene.analysis.TokenizerProfile;
+
+/**
+ * ECNaviNGTokenizer の Factory.
+ *
+ * capitalize_kana, allowed_sign, concat_char 属性は ECNaviTokenizerFactory と同じ.
+ * @author HARUYAMA Seigo Seigo_Haruyama@ecnavi.co.jp
+ *
+ */
+public class ECNaviNGTokenizerFactory extends BaseTokenizerFactory {
+
+    /**
+     * Tokenizerの設定.
+     */
+    private TokenizerProfile profile = TokenizerProfile.getDefault();
+
+    /**
+     * 設定を読み込む.
+     * @param args 設定
+     */
+    @Override
+    public void init(final Map<String, String> args) {
+        super.init(args);
+        profile = TokenizerProfile.getInstance(args);
+    }
+
+    /**
+     * ECNaviNGTokernizerを生成する.
+     * ECNaviTokenizerFactory と同じく, 生成した Tokenizer は TokenizerChain により
+     * スレッドごとに reset(Reader) で再利用される.
+     * @param reader リーダー
+     * @return 生成された ECNaviNGTokernizer
+     */
+    public final ECNaviNGTokenizer create(final Reader reader) {
+        return new ECNaviNGTokenizer(reader, profile);
+    }
+
+}
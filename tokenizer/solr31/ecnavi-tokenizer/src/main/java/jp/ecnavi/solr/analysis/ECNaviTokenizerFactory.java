@@ -1,25 +1,419 @@
-package jp.ecnavi.solr.analysis;
-
-import java.io.Reader;
-
-import org.apache.solr.analysis.BaseTokenizerFactory;
-
-import jp.ecnavi.lucene.analysis.ECNaviTokenizer;
-
-/**
- * ECNaviTokenizer の Factory.
- * @author HARUYAMA Seigo Seigo_Haruyama@ecnavi.co.jp
- *
- */
-public class ECNaviTokenizerFactory extends BaseTokenizerFactory {
-
-    /**
-     * ECNaviTokernizerを生成する.
-     * @param reader リーダー
-     * @return 生成された ECNaviTokernizer
-     */
-    public final ECNaviTokenizer create(final Reader reader) {
-        return new ECNaviTokenizer(reader);
-    }
-
-}
+package jp.ecnavi.solr.analysis;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.solr.analysis.BaseTokenizerFactory;
+import org.apache.solr.common.ResourceLoader;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.SolrInfoMBean;
+import org.apache.solr.core.SolrResourceLoader;
+import org.apache.solr.util.plugin.ResourceLoaderAware;
+
+import jp.ecnavi.lucene.analysis.ECNaviSegmenter;
+import jp.ecnavi.lucene.analysis.ECNaviTokenizer;
+import jp.ecnavi.lucene.analysis.TokenizerProfile;
+import jp.ecnavi.lucene.analysis.TokenizerStats;
+
+/**
+ * ECNaviTokenizer の Factory.
+ *
+ * capitalize_kana, allowed_sign, concat_char 属性で /ECNaviTokenizer.properties と
+ * 同じ設定をフィールドの型ごとに指定できる. 指定しない項目はプロパティファイルの値を使う.
+ *
+ * bigramMode 属性で bi-gram の切り出し方を指定できる.
+ * "all" (省略時) は重なり合う全ての bi-gram を, "minimal" は文字列を覆うのに
+ * 必要な bi-gram だけを切り出す. "minimal" は "all" で索引したフィールドの
+ * 検索時 (analyzer type="query") に使う.
+ *
+ * unhyphenateMode 属性でハイフンで接続されたASCII文字列 (a-b-c) から
+ * ハイフン抜きで結合した Token を切り出す方法を指定できる.
+ * "all" (省略時) は連続する部分の全ての組み合わせを, "full" は全体を結合したものだけを,
+ * "adjacent" は隣り合う2つを結合したものだけを切り出し, "none" は切り出さない.
+ * maxHyphen 属性 (1から16, 省略時は5) で連結するハイフンの数の上限を指定できる.
+ * 検索時に "none" を使えば, 索引時の切り出し方によらずハイフンで区切られた部分の
+ * フレーズ検索になる.
+ * stackUnhyphenated="true" を指定すると, ハイフン抜きの Token を結合した最初の部分と
+ * 同じ位置に重ね (位置の増分 0), ハイフンの連結が余分な位置を使わないようにする.
+ * Lucene 3.1 には Token が覆う位置の数を表す属性がないので, 重ねた Token は
+ * 最初の部分の位置だけを占める.
+ *
+ * maxTokenLength 属性 (1から255, 省略時は255) でASCII文字列の Token の最大の文字長を,
+ * longTokenMode 属性でそれより長い文字列の扱いを指定できる.
+ * "split" (省略時) は最大の文字長ごとに分割し, "drop" は捨て, "prefix" は先頭だけを,
+ * "hash" は全体の64bitのハッシュ値 (16桁の16進数) を切り出す.
+ * "split" 以外では長い文字列をハイフン抜きの結合に加えない.
+ *
+ * dictionary 属性で DictionaryCompiler で作った辞書のファイルを指定すると,
+ * かなカナ漢字の bi-gram の連続から辞書の語 (3文字以上) を切り出す.
+ * 相対パスは conf ディレクトリからとなる. 辞書はメモリマップして引く.
+ * bigramMode="all" では全ての bi-gram に加えて, 各 bi-gram から始まる語を
+ * その bi-gram と同じ位置に重ねて切り出す.
+ * bigramMode="minimal" では最長一致の語と, 語で覆えない文字を覆う bi-gram だけを
+ * 切り出すので, 検索時に使えば語を1つの Token として引ける.
+ * 索引時と検索時には同じ辞書を指定する.
+ *
+ * edgeNGram 属性でASCII文字列 (SINGLE と UNHYPHENATED) の Token の前方の n-gram を
+ * 扱い, 型番などの前方一致を PrefixQuery を使わずに1つの語で引けるようにする.
+ * "index" は Token の後に先頭から minGramSize 文字以上 maxGramSize 文字以下
+ * (1から255, 省略時は1と8) で Token より短い部分を同じ位置に重ねて切り出す.
+ * 種類は "EDGE", オフセットは元の Token と同じになる.
+ * "query" は検索時に使い, maxGramSize より長い Token を先頭の maxGramSize 文字に
+ * 切り詰める. 索引時と検索時には同じ maxGramSize を指定する.
+ * "none" (省略時) は扱わない. longTokenMode="hash" のハッシュ値は対象にしない.
+ *
+ * SolrInfoMBean として切り出し処理の統計 (文書数, 文字数, 種類ごとのToken数,
+ * 半角カナの結合数, ハイフンの連結の打ち切り数, 最大の文字長での分割数) を
+ * 管理画面の stats.jsp や JMX に出す. 名前はクラス名と属性のダイジェストなので,
+ * コアを読み直しても変わらない. SolrResourceLoader は名前ごとに1つしか登録しないので,
+ * 同じ属性の Factory (fieldType の索引時と検索時, 同じ属性の別の fieldType) は
+ * 名前ごとに1つの統計を共有し, どれが登録されても全ての Factory の合計が出る.
+ * 統計はスレッドごとに別に数え, 表示するときに合計する. 終了したスレッドの統計は
+ * 合計に畳み込んで捨てるので, 保持するのは生きているスレッドの分だけとなる.
+ * timeStats="true" を指定すると切り出しにかかった時間も計る. Tokenごとに
+ * System.nanoTime() を呼ぶので, 調査のときだけ指定する.
+ * @author HARUYAMA Seigo Seigo_Haruyama@ecnavi.co.jp
+ *
+ */
+public class ECNaviTokenizerFactory extends BaseTokenizerFactory implements
+        SolrInfoMBean, ResourceLoaderAware {
+
+    /**
+     * 時間を計るかどうかを指定する属性.
+     */
+    public static final String TIME_STATS = "timeStats";
+
+    /**
+     * Tokenizerの設定.
+     */
+    private TokenizerProfile profile = TokenizerProfile.getDefault();
+
+    /**
+     * SolrInfoMBean の名前. init() で属性のダイジェストを付ける.
+     */
+    private String name = getClass().getName();
+
+    /**
+     * SolrInfoMBean の名前ごとの統計.
+     */
+    private static final ConcurrentMap<String, SharedStats> SHARED_STATS =
+        new ConcurrentHashMap<String, SharedStats>();
+
+    /**
+     * 同じ名前の Factory で共有する統計. init() で名前のものに替える.
+     */
+    private SharedStats stats = SharedStats.forName(name, false);
+
+    /**
+     * 同じ名前の Factory で共有する統計.
+     * 名前には timeStats 属性も含まれるので, 時間を計るかどうかも同じになる.
+     */
+    private static final class SharedStats {
+        /**
+         * 切り出しの時間を計るかどうか.
+         */
+        private final boolean timeStats;
+
+        /**
+         * 生きているスレッドの統計. this で同期する.
+         */
+        private final List<Stripe> stripes = new ArrayList<Stripe>();
+
+        /**
+         * 終了したスレッドの統計の合計. this で同期する.
+         */
+        private final TokenizerStats retired = new TokenizerStats();
+
+        /**
+         * スレッドごとの統計.
+         */
+        private final ThreadLocal<TokenizerStats> stripe =
+            new ThreadLocal<TokenizerStats>() {
+                @Override
+                protected TokenizerStats initialValue() {
+                    TokenizerStats stats = new TokenizerStats(timeStats);
+                    addStripe(new Stripe(Thread.currentThread(), stats));
+                    return stats;
+                }
+            };
+
+        /**
+         * コンストラクタ.
+         * @param timeStats 切り出しの時間を計るかどうか
+         */
+        private SharedStats(final boolean timeStats) {
+            this.timeStats = timeStats;
+        }
+
+        /**
+         * 名前の統計を返す. なければ作る.
+         * @param name SolrInfoMBean の名前
+         * @param timeStats 切り出しの時間を計るかどうか
+         * @return 統計
+         */
+        static SharedStats forName(final String name,
+                final boolean timeStats) {
+            SharedStats shared = SHARED_STATS.get(name);
+            if (shared == null) {
+                SharedStats created = new SharedStats(timeStats);
+                shared = SHARED_STATS.putIfAbsent(name, created);
+                if (shared == null) {
+                    shared = created;
+                }
+            }
+            return shared;
+        }
+
+        /**
+         * スレッドの統計を加える. 終了したスレッドの統計はここで畳み込むので,
+         * 保持する統計の数は生きているスレッドの数を超えない.
+         * @param added スレッドの統計
+         */
+        private synchronized void addStripe(final Stripe added) {
+            retireStripes();
+            stripes.add(added);
+        }
+
+        /**
+         * 終了したスレッドの統計を合計に畳み込んで捨てる.
+         * isAlive() が false を返した後は, そのスレッドが書いた値が全て読める.
+         */
+        private void retireStripes() {
+            for (Iterator<Stripe> it = stripes.iterator(); it.hasNext();) {
+                Stripe s = it.next();
+                if (!s.thread.isAlive()) {
+                    retired.add(s.stats);
+                    it.remove();
+                }
+            }
+        }
+
+        /**
+         * 全てのスレッドの統計を合計する.
+         * @return 統計
+         */
+        synchronized TokenizerStats getTotalStats() {
+            retireStripes();
+            TokenizerStats total = new TokenizerStats(timeStats);
+            total.add(retired);
+            for (Stripe s : stripes) {
+                total.add(s.stats);
+            }
+            return total;
+        }
+
+        /**
+         * 統計を数えているスレッドの数を返す.
+         * @return スレッドの数
+         */
+        synchronized int getThreadCount() {
+            return stripes.size();
+        }
+    }
+
+    /**
+     * 1つのスレッドの統計.
+     */
+    private static final class Stripe {
+        /**
+         * 数えるスレッド.
+         */
+        private final Thread thread;
+        /**
+         * 統計.
+         */
+        private final TokenizerStats stats;
+
+        /**
+         * コンストラクタ.
+         * @param thread 数えるスレッド
+         * @param stats 統計
+         */
+        Stripe(final Thread thread, final TokenizerStats stats) {
+            this.thread = thread;
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * 設定を読み込む.
+     * @param args 設定
+     */
+    @Override
+    public void init(final Map<String, String> args) {
+        super.init(args);
+        String dictionary = args.get(TokenizerProfile.DICTIONARY);
+        if (dictionary == null || new File(dictionary.trim()).isAbsolute()) {
+            profile = TokenizerProfile.getInstance(args);
+        }
+        name = getClass().getName() + "#" + digest(args);
+        stats = SharedStats.forName(name, getBoolean(TIME_STATS, false));
+    }
+
+    /**
+     * 属性のダイジェスト (MD5の先頭4バイトの16進数) を返す.
+     * 属性の順序によらないように名前の順に並べる.
+     * @param args 設定
+     * @return ダイジェスト
+     */
+    private static String digest(final Map<String, String> args) {
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(
+                    new TreeMap<String, String>(args).toString()
+                    .getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; ++i) {
+                hex.append(Character.forDigit((md5[i] >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(md5[i] & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 辞書の相対パスを conf ディレクトリから解決して設定を読み込む.
+     * @param loader リソースローダ
+     */
+    public void inform(final ResourceLoader loader) {
+        String dictionary = args.get(TokenizerProfile.DICTIONARY);
+        if (dictionary == null || new File(dictionary.trim()).isAbsolute()) {
+            return;
+        }
+        Map<String, String> resolved = new HashMap<String, String>(args);
+        if (loader instanceof SolrResourceLoader) {
+            resolved.put(TokenizerProfile.DICTIONARY, new File(
+                    ((SolrResourceLoader) loader).getConfigDir(),
+                    dictionary.trim()).getPath());
+        }
+        profile = TokenizerProfile.getInstance(resolved);
+    }
+
+    /**
+     * ECNaviTokernizerを生成する.
+     * Solr の TokenizerChain (SolrAnalyzer.reusableTokenStream) はスレッドごとに
+     * 生成した Tokenizer を保持し, 以降の文書では reset(Reader) で再利用するので,
+     * このメソッドが呼ばれるのはスレッドごとに1度だけとなる.
+     * ECNaviTokenizer の reset(Reader) はオブジェクトを確保しない.
+     * 統計は生成したスレッドのものに数える.
+     * @param reader リーダー
+     * @return 生成された ECNaviTokernizer
+     */
+    public final ECNaviTokenizer create(final Reader reader) {
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(reader, profile);
+        tokenizer.setStats(stats.stripe.get());
+        return tokenizer;
+    }
+
+    /**
+     * 同じ名前の全ての Factory の, 全てのスレッドの統計を合計する.
+     * @return 統計
+     */
+    public final TokenizerStats getTotalStats() {
+        return stats.getTotalStats();
+    }
+
+    /**
+     * 統計を数えているスレッドの数を返す.
+     * @return スレッドの数
+     */
+    public final int getThreadCount() {
+        return stats.getThreadCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getVersion() {
+        return "0.9_for_solr_3.1";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getDescription() {
+        return "ECNaviTokenizer statistics " + getArgs();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Category getCategory() {
+        return Category.OTHER;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getSourceId() {
+        return "";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getSource() {
+        return "";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public URL[] getDocs() {
+        return null;
+    }
+
+    /**
+     * 統計を返す.
+     * @return 統計
+     */
+    public NamedList<Object> getStatistics() {
+        TokenizerStats total = getTotalStats();
+        NamedList<Object> lst = new SimpleOrderedMap<Object>();
+        lst.add("threads", getThreadCount());
+        lst.add("documents", total.getDocuments());
+        lst.add("chars", total.getChars());
+        lst.add("tokens", total.getTokens());
+        for (int type : new int[] {ECNaviSegmenter.TYPE_SINGLE,
+                ECNaviSegmenter.TYPE_DOUBLE,
+                ECNaviSegmenter.TYPE_UNHYPHENATED,
+                ECNaviSegmenter.TYPE_WORD,
+                ECNaviSegmenter.TYPE_EDGE_NGRAM}) {
+            lst.add("tokens_" + ECNaviSegmenter.typeName(type),
+                    total.getTokens(type));
+        }
+        lst.add("hankakuMerges", total.getHankakuMerges());
+        lst.add("hyphenCutoffs", total.getHyphenCutoffs());
+        lst.add("wordSplits", total.getWordSplits());
+        if (total.isTimed()) {
+            lst.add("time_ms", total.getNanos() / 1000000);
+            lst.add("avgNanosPerToken", total.getTokens() == 0 ? 0.0
+                    : (double) total.getNanos() / total.getTokens());
+        }
+        return lst;
+    }
+
+}
@@ -0,0 +1,2560 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+public class ECNaviNGTokenizerTest extends TestCase {
+
+    private static class TestToken {
+        String termText;
+        int start;
+        int end;
+        String type;
+
+        String term() {
+            return termText;
+        }
+
+        int startOffset() {
+            return start;
+        }
+
+        int endOffset() {
+            return end;
+        }
+
+        String type() {
+            return type;
+        }
+    }
+
+    /**
+     * incrementToken() で次のTokenを読み, 属性の値を TestToken にして返す.
+     *
+     * @param tokenizer Tokenizer
+     * @return Token. 終わりに達したら null
+     * @throws IOException I/O例外
+     */
+    private static TestToken next(final ECNaviNGTokenizer tokenizer)
+        throws IOException {
+        if (!tokenizer.incrementToken()) {
+            return null;
+        }
+        CharTermAttribute termAtt = (CharTermAttribute) tokenizer
+            .getAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = (OffsetAttribute) tokenizer
+            .getAttribute(OffsetAttribute.class);
+        TypeAttribute typeAtt = (TypeAttribute) tokenizer
+            .getAttribute(TypeAttribute.class);
+        TestToken token = new TestToken();
+        token.termText = termAtt.toString();
+        token.start = offsetAtt.startOffset();
+        token.end = offsetAtt.endOffset();
+        token.type = typeAtt.type();
+        return token;
+    }
+
+    @Override
+    protected void setUp() {
+        // 設定ファイルの値に戻しておく. テストの実行順に依存させない
+        ECNaviNGTokenizer.setDoCapitalizeKana(false);
+    }
+
+    public void testAsciiString1() throws IOException {
+
+        String testString = "uml";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        /*
+         * System.out.println(Integer.toString(token.startOffset()) + "-" +
+         * Integer.toString(token) + ": " + new
+         * String(token.termBuffer()));
+         */
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("um", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals("ml", token.term());
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testAsciiString2() throws IOException {
+
+        String testString = "Apache lucene Nyuumon 1";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ap", token.term());
+
+        token = next(tokenizer);
+        assertEquals("pa", token.term());
+        token = next(tokenizer);
+        assertEquals("ac", token.term());
+        token = next(tokenizer);
+        assertEquals("ch", token.term());
+        token = next(tokenizer);
+        assertEquals("he", token.term());
+
+        token = next(tokenizer);
+        assertEquals(7, token.startOffset());
+        assertEquals(9, token.endOffset());
+        assertEquals("lu", token.term());
+
+        token = next(tokenizer);
+        assertEquals("uc", token.term());
+        token = next(tokenizer);
+        assertEquals("ce", token.term());
+        token = next(tokenizer);
+        assertEquals("en", token.term());
+        token = next(tokenizer);
+        assertEquals("ne", token.term());
+
+        token = next(tokenizer);
+        assertEquals(14, token.startOffset());
+        assertEquals(16, token.endOffset());
+        assertEquals("ny", token.term());
+        token = next(tokenizer);
+        assertEquals("yu", token.term());
+        token = next(tokenizer);
+        assertEquals("uu", token.term());
+        token = next(tokenizer);
+        assertEquals("um", token.term());
+        token = next(tokenizer);
+        assertEquals("mo", token.term());
+        token = next(tokenizer);
+        assertEquals("on", token.term());
+
+        token = next(tokenizer);
+        assertEquals(22, token.startOffset());
+        assertEquals(23, token.endOffset());
+        assertEquals("1", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testFullWidthRomanAlphabet1() throws IOException {
+
+        String testString = "ＡＢＣ　ａＡAaａ iii   eee \n ＺｚＹｙZzYy";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("aa", token.term());
+        token = next(tokenizer);
+        assertEquals("aa", token.term());
+        token = next(tokenizer);
+        assertEquals("aa", token.term());
+        token = next(tokenizer);
+        assertEquals("aa", token.term());
+
+        token = next(tokenizer);
+        assertEquals(10, token.startOffset());
+        assertEquals(12, token.endOffset());
+        assertEquals("ii", token.term());
+        token = next(tokenizer);
+        assertEquals("ii", token.term());
+
+        token = next(tokenizer);
+        assertEquals(16, token.startOffset());
+        assertEquals(18, token.endOffset());
+        assertEquals("ee", token.term());
+        token = next(tokenizer);
+        assertEquals("ee", token.term());
+
+        token = next(tokenizer);
+        assertEquals(22, token.startOffset());
+        assertEquals(24, token.endOffset());
+        assertEquals("zz", token.term());
+        token = next(tokenizer);
+        assertEquals("zy", token.term());
+        token = next(tokenizer);
+        assertEquals("yy", token.term());
+        token = next(tokenizer);
+        assertEquals("yz", token.term());
+        token = next(tokenizer);
+        assertEquals("zz", token.term());
+        token = next(tokenizer);
+        assertEquals("zy", token.term());
+        token = next(tokenizer);
+        assertEquals("yy", token.term());
+        token = next(tokenizer);
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testFullWidthRomanAlphabet2() throws IOException {
+
+        String testString = "０９ＡＺａｚ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("09", token.term());
+        token = next(tokenizer);
+        assertEquals("9a", token.term());
+        token = next(tokenizer);
+        assertEquals("az", token.term());
+        token = next(tokenizer);
+        assertEquals("za", token.term());
+        token = next(tokenizer);
+        assertEquals("az", token.term());
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testNihongoString1() throws IOException {
+
+        String testString = "あやら わ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("あや", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("やら", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("わ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testNihongoString2() throws IOException {
+
+        String testString = "私の名前は中野です.";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("私の", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("の名", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("名前", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("前は", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("は中", token.term());
+
+        token = next(tokenizer);
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("中野", token.term());
+
+        token = next(tokenizer);
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("野で", token.term());
+
+        token = next(tokenizer);
+        assertEquals(7, token.startOffset());
+        assertEquals(9, token.endOffset());
+        assertEquals("です", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString1() throws IOException {
+
+        String testString = "ﾊﾟｰｸ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("パー", token.term());
+
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ーク", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString2() throws IOException {
+
+        String testString = "ﾅｶｶﾞﾐ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ナカ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("カガ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("ガミ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testHankakuNihongoString3() throws IOException {
+
+        String testString = "ｸﾟｰｸ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ク゜", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ーク", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testHankakuNihongoString4() throws IOException {
+
+        String testString = "ﾎﾞﾎﾟ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ボポ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString5() throws IOException {
+
+        String testString = "ﾊﾞｰｶ nyo";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("バー", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ーカ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("ny", token.term());
+
+        token = next(tokenizer);
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("yo", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString6() throws IOException {
+
+        String testString = "ﾎﾞﾎﾟﾎﾟ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ボポ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ポポ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testHankakuNihongoString7() throws IOException {
+
+        String testString = "ﾎﾞﾎﾟﾎﾟにょ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ボポ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ポポ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("ポに", token.term());
+
+        token = next(tokenizer);
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("にょ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testHankakuNihongoString8() throws IOException {
+
+        String testString = "ﾎﾞﾎﾟﾎﾟ☆にょ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ボポ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ポポ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("ポに", token.term());
+
+        token = next(tokenizer);
+        assertEquals(7, token.startOffset());
+        assertEquals(9, token.endOffset());
+        assertEquals("にょ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testHankakuNihongoString9() throws IOException {
+
+        String testString = "ﾎﾟ☆ﾎﾟ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("ポポ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString10() throws IOException {
+
+        String testString = "nyo ﾎﾟ☆ﾎﾟ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ny", token.term());
+        token = next(tokenizer);
+        assertEquals("yo", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(9, token.endOffset());
+        assertEquals("ポポ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString11() throws IOException {
+
+
+
+        String testString = "ｯﾞ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ッ゛", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testHankakuNihongoString12() throws IOException {
+
+        //ちゃんとした対応していないことの確認のテスト
+        //他の変更により結果が変わるならそれもよし
+
+
+        String testString = "ｯﾞ";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ツ゛", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+        ECNaviNGTokenizer.setDoCapitalizeKana(false);
+    }
+
+
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testMixedString1() throws IOException {
+
+        String testString = "楽々ERDレッスン";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(false);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("楽々", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("er", token.term());
+
+        token = next(tokenizer);
+        assertEquals("rd", token.term());
+
+        token = next(tokenizer);
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("レッ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("ッス", token.term());
+
+        token = next(tokenizer);
+        assertEquals(7, token.startOffset());
+        assertEquals(9, token.endOffset());
+        assertEquals("スン", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testMixedString2() throws IOException {
+
+        String testString = "楽々ERDレッ スン";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("楽々", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("er", token.term());
+
+        token = next(tokenizer);
+        assertEquals("rd", token.term());
+
+        token = next(tokenizer);
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("レッ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(8, token.startOffset());
+        assertEquals(10, token.endOffset());
+        assertEquals("スン", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testSimbolString1() throws IOException {
+
+        String testString = "ａ%Ａ％）";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals(")", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+/*
+    public void testＬｏｎｇString1() throws IOException {
+
+        String testString = "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+                + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+                + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(255, token.endOffset());
+
+        token = next(tokenizer);
+        assertEquals(255, token.startOffset());
+        assertEquals(300, token.endOffset());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+*/
+    public void testSignTable() {
+        try{
+            String NULL_STR = null;
+            //String[] NULL_ARR = null;
+            //new SignTable().load(NULL_ARR);
+            SignTable.getInstance(NULL_STR);
+            SignTable.getInstance("");
+        }catch(Exception e){
+            fail();
+        }
+        SignTable table = SignTable.getInstance("()+_");
+        //文字列
+        //assertTrue(table.isSign("("));
+        //assertTrue(table.isSign(")"));
+        //assertTrue(table.isSign("+"));
+        //assertTrue(table.isSign("_"));
+
+        //コードポイント
+        assertTrue(table.isSign("(".codePointAt(0)));
+        assertTrue(table.isSign(")".codePointAt(0)));
+        assertTrue(table.isSign("+".codePointAt(0)));
+        assertTrue(table.isSign("_".codePointAt(0)));
+
+        //char
+        assertTrue(table.isSign('('));
+        assertTrue(table.isSign(')'));
+        assertTrue(table.isSign('+'));
+        assertTrue(table.isSign('_'));
+
+        //assertFalse(table.isSign(null));
+        //assertFalse(table.isSign(""));
+        //assertFalse(table.isSign("a"));
+        assertFalse(table.isSign("a".codePointAt(0)));
+        assertFalse(table.isSign('a'));
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testSymbol1() throws IOException {
+
+        String testString = "_+#,(#+_)";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("_+", token.term());
+        token = next(tokenizer);
+        assertEquals("+#", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("(#", token.term());
+        token = next(tokenizer);
+        assertEquals("#+", token.term());
+        token = next(tokenizer);
+        assertEquals("+_", token.term());
+        token = next(tokenizer);
+        assertEquals("_)", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testCapitalizeKana1() throws IOException {
+
+        String testString = "ぁァ";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("あア", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testCapitalizeKana2() throws IOException {
+
+        String testString = "ぁァ";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(false);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ぁァ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+
+    public void testCapitalizeKana3() throws IOException {
+
+        String testString = "キャノン";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("キヤ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ヤノ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ノン", token.term());
+
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testCapitalizeKana4() throws IOException {
+
+        String testString = "ゎヮヵヶ";
+
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("わワ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ワカ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("カケ", token.term());
+
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testCapitalizeKana5() throws IOException {
+
+        String testString = "ヵ゛ヶ゛";
+        //ちゃんとした対応していないことの確認のテスト
+        //他の変更により結果が変わるならそれもよし
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("カ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ケ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+        ECNaviNGTokenizer.setDoCapitalizeKana(false);
+    }
+
+
+    public void testNomarilizeWave1() throws IOException {
+
+        String testString = "～";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("ー", token.term());
+        assertEquals("BIGRAM_DOUBLE", token.type());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testNomarilizeWave2() throws IOException {
+
+        String testString = "ー";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("ー", token.term());
+        assertEquals("BIGRAM_DOUBLE", token.type());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testNomarilizeWave3() throws IOException {
+
+        String testString = "〜";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("ー", token.term());
+        assertEquals("BIGRAM_DOUBLE", token.type());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testNomarilizeWave4() throws IOException {
+
+        String testString = "うぉ〜か〜";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("うお", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("おー", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ーか", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("かー", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testNomarilizeWave5() throws IOException {
+
+        String testString = "うぉ～か～";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("うお", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("おー", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ーか", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("かー", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testNomarilizeWave6() throws IOException {
+
+        String testString = "~";
+
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation1() throws IOException {
+
+        String testString = "A-B";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ab", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation2() throws IOException {
+
+        String testString = "A-B-C";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ab", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("bc", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation3() throws IOException {
+
+        String testString = "A- B";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("b", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation4() throws IOException {
+
+        String testString = "A -B";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("b", token.term());
+
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation5() throws IOException {
+
+        String testString = "Cyber-Shot";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("cy", token.term());
+
+        token = next(tokenizer);
+        assertEquals("yb", token.term());
+
+        token = next(tokenizer);
+        assertEquals("be", token.term());
+        token = next(tokenizer);
+        assertEquals("er", token.term());
+
+        token = next(tokenizer);
+        assertEquals("rs", token.term());
+
+        token = next(tokenizer);
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("sh", token.term());
+
+        token = next(tokenizer);
+        assertEquals("ho", token.term());
+
+        token = next(tokenizer);
+        assertEquals("ot", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation6() throws IOException {
+
+        String testString = "あ-a";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("あ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("a", token.term());
+
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+
+    public void testUnHyphenation7() throws IOException {
+
+        String testString = "a-あ";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("あ", token.term());
+
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation8() throws IOException {
+
+        String testString = "a--B";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("b", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+
+    public void testUnHyphenation9() throws IOException {
+
+        String testString = "a-1";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("a1", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation10() throws IOException {
+
+        String testString = "1-a";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("1a", token.term());
+
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation11() throws IOException {
+
+        String testString = "1-a-";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("1a", token.term());
+
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation12() throws IOException {
+
+        String testString = "-1-a";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("1a", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation13() throws IOException {
+
+        String testString = "A-B-C-D-E-F";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals("ef", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+
+    public void testUnHyphenation14() throws IOException {
+
+        String testString = "A-B-C-D-E-F-G";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals("ef", token.term());
+        token = next(tokenizer);
+        assertEquals("fg", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation15() throws IOException {
+
+        String testString = "A-B-C-D-E-F-G-H";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals("ef", token.term());
+        token = next(tokenizer);
+        assertEquals("fg", token.term());
+        token = next(tokenizer);
+        assertEquals("gh", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+/*
+    public void testUnHyphenation16() throws IOException {
+
+        String testString = "0123456789"
+                + "-012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+                + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+                + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals("0123456789", token.term());
+
+        token = next(tokenizer);
+        assertEquals(
+                "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+            + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+            + "0123456789012345678901234567890123456789012345678901234"
+                , token.term());
+
+        token = next(tokenizer);
+        assertEquals("0123456789"
+                + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+        + "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"
+        + "0123456789012345678901234567890123456789012345678901234"
+            , token.term());
+
+        token = next(tokenizer);
+
+        assertEquals("56789012345678901234567890123456789"
+            , token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+    */
+    public void testUnHyphenation17() throws IOException {
+        //System.out.println("17");
+        String testString = "A-B-C-D-E--F-G";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals("fg", token.term());
+        assertEquals(11, token.startOffset());
+        assertEquals(14, token.endOffset());
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+    public void testUnHyphenation18() throws IOException {
+        String testString = "A-B-C-D-E-- F-G";
+
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals("fg", token.term());
+        assertEquals(12, token.startOffset());
+        assertEquals(15, token.endOffset());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation19() throws IOException {
+        String testString = "A-B-C-D-E--あい";
+
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("ab", token.term());
+        token = next(tokenizer);
+        assertEquals("bc", token.term());
+        token = next(tokenizer);
+        assertEquals("cd", token.term());
+        token = next(tokenizer);
+        assertEquals("de", token.term());
+        token = next(tokenizer);
+        assertEquals(11, token.startOffset());
+        assertEquals(13, token.endOffset());
+        assertEquals("あい", token.term());
+
+        token = next(tokenizer);
+
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation20() throws IOException {
+
+        String testString = "1-a 2-b";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("1a", token.term());
+
+        token = next(tokenizer);
+        assertEquals("2b", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation21() throws IOException {
+
+        String testString = "1- 2-b";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("1", token.term());
+
+        token = next(tokenizer);
+        assertEquals("2b", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+    public void testUnHyphenation22() throws IOException {
+
+        String testString = "1-2--b";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals("12", token.term());
+
+        token = next(tokenizer);
+        assertEquals("b", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation23() throws IOException {
+
+        String testString = "1--2-b";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("1", token.term());
+
+        token = next(tokenizer);
+        assertEquals("2b", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+    public void testUnHyphenation24() throws IOException {
+
+        String testString = "PK-UG-M052互換";
+
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("pk", token.term());
+
+        token = next(tokenizer);
+        assertEquals("ku", token.term());
+
+        token = next(tokenizer);
+        assertEquals("ug", token.term());
+
+        token = next(tokenizer);
+        assertEquals("gm", token.term());
+
+        token = next(tokenizer);
+        assertEquals("m0", token.term());
+
+        token = next(tokenizer);
+        assertEquals("05", token.term());
+
+        token = next(tokenizer);
+        assertEquals("52", token.term());
+
+        token = next(tokenizer);
+        assertEquals("互換", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+
+    }
+
+
+
+
+
+
+    public void testSpecialSymbol1() throws IOException {
+        String testString = "だ☆ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol2() throws IOException {
+        String testString = "つのだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol3() throws IOException {
+        String testString = "だ☆☆ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("だ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ひ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol4() throws IOException {
+        String testString = "つのだ☆☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol5() throws IOException {
+        String testString = "だ☆ ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("だ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ひ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol6() throws IOException {
+        String testString = "つの だ☆☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("だ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol7() throws IOException {
+        String testString = "だ☆ ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("だ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol8() throws IOException {
+        String testString = "つのだ☆ ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol9() throws IOException {
+        String testString = "つのだ☆A";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+
+    public void testSpecialSymbol10() throws IOException {
+        String testString = "A☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+    public void testSpecialSymbol11() throws IOException {
+        String testString = "Aだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("だひ", token.term());
+
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol12() throws IOException {
+        String testString = "つのだ☆";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol13() throws IOException {
+        String testString = "つのだ☆☆";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol14() throws IOException {
+        String testString = "☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol15() throws IOException {
+        String testString = "☆☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol16() throws IOException {
+        String testString = "つのaだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(5, token.startOffset());
+        assertEquals(7, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol17() throws IOException {
+        String testString = "つのaだ☆☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(2, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("a", token.term());
+
+        token = next(tokenizer);
+        assertEquals(3, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("だ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(6, token.startOffset());
+        assertEquals(8, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol18() throws IOException {
+        String testString = "だ★ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol19() throws IOException {
+        String testString = "つのだ★ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol20() throws IOException {
+        String testString = "つのだ★ひろ つのだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertEquals("つの", token.term());
+        token = next(tokenizer);
+        assertEquals("のだ", token.term());
+        token = next(tokenizer);
+        assertEquals("だひ", token.term());
+        token = next(tokenizer);
+        assertEquals("ひろ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol21() throws IOException {
+        String testString = "つのだ★s つのだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+        assertEquals("s", token.term());
+
+        token = next(tokenizer);
+        assertEquals("つの", token.term());
+        token = next(tokenizer);
+        assertEquals("のだ", token.term());
+        token = next(tokenizer);
+        assertEquals("だひ", token.term());
+        token = next(tokenizer);
+        assertEquals("ひろ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testSpecialSymbol22() throws IOException {
+        String testString = "つのだ★☆ つのだ☆ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+        assertEquals("つの", token.term());
+        token = next(tokenizer);
+        assertEquals("のだ", token.term());
+        token = next(tokenizer);
+        assertEquals("だひ", token.term());
+        token = next(tokenizer);
+        assertEquals("ひろ", token.term());
+
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol23() throws IOException {
+        String testString = "キラッ☆【";
+        ECNaviNGTokenizer.setDoCapitalizeKana(true);
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("キラ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("ラツ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol24() throws IOException {
+        String testString = "だ=ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol25() throws IOException {
+        String testString = "つのだ=ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol26() throws IOException {
+        String testString = "だ＝ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol27() throws IOException {
+        String testString = "つのだ＝ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+
+    public void testSpecialSymbol28() throws IOException {
+        String testString = "だ・ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol29() throws IOException {
+        String testString = "つのだ・ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+
+    public void testSpecialSymbol30() throws IOException {
+        String testString = "だ･ひ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(3, token.endOffset());
+
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testSpecialSymbol31() throws IOException {
+        String testString = "つのだ･ひろ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+        TestToken token = next(tokenizer);
+
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("つの", token.term());
+
+        token = next(tokenizer);
+        assertEquals(1, token.startOffset());
+        assertEquals(3, token.endOffset());
+        assertEquals("のだ", token.term());
+
+        token = next(tokenizer);
+
+        assertEquals(2, token.startOffset());
+        assertEquals(5, token.endOffset());
+        assertEquals("だひ", token.term());
+
+        token = next(tokenizer);
+        assertEquals(4, token.startOffset());
+        assertEquals(6, token.endOffset());
+        assertEquals("ひろ", token.term());
+
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+
+    public void testDakuten1() throws IOException {
+        String testString = "゛";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        assertEquals(false, Character.isLetterOrDigit(testString.charAt(0)));
+
+        TestToken token = next(tokenizer);
+
+        assertNull(token);
+    }
+
+    public void testDakuten2() throws IOException {
+        String testString = "ﾞ";
+        java.io.StringReader reader = new java.io.StringReader(testString);
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        //ちゃんとした対応していないことの確認のテスト
+        //他の変更により結果が変わるならそれもよし
+        //Javaはいわゆる半角の濁点をCharacter.isLetterOrDigit()をtrueにしてるので
+        //スルーしても
+
+        assertEquals(true, Character.isLetterOrDigit(testString.charAt(0)));
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(1, token.endOffset());
+        assertEquals("゛", token.term());
+        token = next(tokenizer);
+        assertNull(token);
+    }
+
+    public void testTokenResuable1() throws IOException {
+
+        java.io.StringReader reader = new java.io.StringReader("ｶﾞｷﾞ");
+        ECNaviNGTokenizer tokenizer = new ECNaviNGTokenizer(reader);
+
+        TestToken token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(4, token.endOffset());
+        assertEquals("ガギ", token.term());
+        token = next(tokenizer);
+        assertNull(token);
+
+        tokenizer.reset(new java.io.StringReader("ab"));
+
+        token = next(tokenizer);
+        assertEquals(0, token.startOffset());
+        assertEquals(2, token.endOffset());
+        assertEquals("ab", token.term());
+        assertEquals("BIGRAM_SINGLE", token.type());
+        token = next(tokenizer);
+        assertNull(token);
+        tokenizer.end();
+        OffsetAttribute offsetAtt = (OffsetAttribute) tokenizer
+            .getAttribute(OffsetAttribute.class);
+        assertEquals(2, offsetAtt.endOffset());
+    }
+}
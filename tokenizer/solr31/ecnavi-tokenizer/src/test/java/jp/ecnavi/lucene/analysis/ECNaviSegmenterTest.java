@@ -0,0 +1,376 @@
+package jp.ecnavi.lucene.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+public final class ECNaviSegmenterTest extends TestCase {
+
+    private static final String[] TEXTS = {
+        "abc def",
+        "日本語の文字列",
+        "ｶﾞｷﾞｸﾞｹﾞｺﾞ ﾊﾟﾋﾟﾌﾟﾍﾟﾎﾟ",
+        "KX-PW100-B SH-03C a-b-c-d-e-f-g",
+        "【送料無料】ﾃﾞｼﾞﾀﾙｶﾒﾗ DSC-WX1 ブラック 1,980円 ★☆ Wi-Fi ＡＢＣ",
+        "あ・い・・う a--b c-あ",
+        "",
+    };
+
+    private static String describe(final String term, final int start,
+            final int end, final String type, final int positionIncrement) {
+        return term + "(" + start + "," + end + "," + type + ","
+            + positionIncrement + ")";
+    }
+
+    private static List<String> tokenize(final String str,
+            final TokenizerProfile profile) throws IOException {
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(new StringReader(str),
+                profile);
+        CharTermAttribute termAtt = tokenizer
+            .getAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = tokenizer
+            .getAttribute(OffsetAttribute.class);
+        TypeAttribute typeAtt = tokenizer.getAttribute(TypeAttribute.class);
+        PositionIncrementAttribute posIncAtt = tokenizer
+            .getAttribute(PositionIncrementAttribute.class);
+        List<String> tokens = new ArrayList<String>();
+        while (tokenizer.incrementToken()) {
+            tokens.add(describe(termAtt.toString(), offsetAtt.startOffset(),
+                        offsetAtt.endOffset(), typeAtt.type(),
+                        posIncAtt.getPositionIncrement()));
+        }
+        return tokens;
+    }
+
+    private static List<String> segment(final ECNaviSegmenter segmenter,
+            final char[] text, final int offset, final int length) {
+        final List<String> tokens = new ArrayList<String>();
+        segmenter.segment(text, offset, length,
+                new ECNaviSegmenter.Handler() {
+                    public void token(char[] term, int termOffset,
+                        int termLength, int start, int end, int type,
+                        int positionIncrement) {
+                        tokens.add(describe(new String(term, termOffset,
+                                    termLength), start - offset, end - offset,
+                                    ECNaviSegmenter.typeName(type),
+                                    positionIncrement));
+                    }
+                });
+        return tokens;
+    }
+
+    private void checkSameAsTokenizer(final TokenizerProfile profile)
+        throws IOException {
+        ECNaviSegmenter segmenter = new ECNaviSegmenter(profile);
+        for (String str : TEXTS) {
+            // 前後に余分な文字がある範囲を渡す
+            char[] text = ("xx" + str + "yy").toCharArray();
+            char[] copy = text.clone();
+            assertEquals(str, tokenize(str, profile),
+                    segment(segmenter, text, 2, str.length()));
+            // 呼び出し側の配列は書き換えない
+            assertEquals(new String(copy), new String(text));
+        }
+    }
+
+    public void testSameAsTokenizer() throws IOException {
+        checkSameAsTokenizer(TokenizerProfile.getDefault());
+        checkSameAsTokenizer(TokenizerProfile.getDefault()
+                .withCapitalizeKana(true));
+    }
+
+    public void testSameAsTokenizerMinimal() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put(TokenizerProfile.BIGRAM_MODE, "minimal");
+        checkSameAsTokenizer(TokenizerProfile.getInstance(args));
+    }
+
+    public void testSameAsTokenizerStacked() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put(TokenizerProfile.STACK_UNHYPHENATED, "true");
+        checkSameAsTokenizer(TokenizerProfile.getInstance(args));
+        args.put(TokenizerProfile.BIGRAM_MODE, "minimal");
+        checkSameAsTokenizer(TokenizerProfile.getInstance(args));
+    }
+
+    public void testRead() {
+        ECNaviSegmenter segmenter = new ECNaviSegmenter();
+        char[] text = " ab-cd 日本語".toCharArray();
+        segmenter.reset(text, 1, text.length - 1);
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        int[] types = new int[4];
+        // 配列が足りない場合は続きから読める
+        assertEquals(3, segmenter.read(starts, ends, types, 1, 3));
+        assertEquals(1, starts[1]);
+        assertEquals(3, ends[1]);
+        assertEquals(ECNaviSegmenter.TYPE_SINGLE, types[1]);
+        assertEquals(4, starts[2]);
+        assertEquals(6, ends[2]);
+        assertEquals(1, starts[3]);
+        assertEquals(6, ends[3]);
+        assertEquals(ECNaviSegmenter.TYPE_UNHYPHENATED, types[3]);
+        assertEquals(2, segmenter.read(starts, ends, null, 0, 4));
+        assertEquals(7, starts[0]);
+        assertEquals(9, ends[0]);
+        assertEquals(8, starts[1]);
+        assertEquals(10, ends[1]);
+        assertEquals(10, segmenter.getFinalOffset());
+        assertEquals(-1, segmenter.read(starts, ends, types, 0, 4));
+    }
+
+    public void testBlockBoundary() throws IOException {
+        // CharWindow のブロックをまたぐ場合
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            sb.append("ｶﾞ-ab-c ");
+        }
+        String str = sb.toString();
+        ECNaviSegmenter segmenter = new ECNaviSegmenter();
+        assertEquals(tokenize(str, TokenizerProfile.getDefault()),
+                segment(segmenter, str.toCharArray(), 0, str.length()));
+    }
+
+    public void testStats() {
+        StringBuilder sb = new StringBuilder("ｶﾞｷﾞ 日本語 a-b-c-d-e-f-g ");
+        for (int i = 0; i < 300; ++i) {
+            sb.append('x');
+        }
+        char[] text = sb.toString().toCharArray();
+        ECNaviSegmenter segmenter = new ECNaviSegmenter();
+        List<String> tokens = segment(segmenter, text, 0, text.length);
+        // 入力の終わりの後に読んでも数えない
+        assertFalse(segmenter.next());
+
+        TokenizerStats stats = segmenter.getStats();
+        assertEquals(1, stats.getDocuments());
+        assertEquals(text.length, stats.getChars());
+        assertEquals(tokens.size(), stats.getTokens());
+        int[] types = new int[4];
+        for (String token : tokens) {
+            for (int type = 1; type < types.length; ++type) {
+                if (token.endsWith("," + ECNaviSegmenter.typeName(type)
+                            + ",1)")) {
+                    ++types[type];
+                }
+            }
+        }
+        for (int type = 1; type < types.length; ++type) {
+            assertEquals(ECNaviSegmenter.typeName(type), types[type],
+                    stats.getTokens(type));
+        }
+        assertEquals(2, stats.getHankakuMerges());
+        assertEquals(1, stats.getHyphenCutoffs());
+        assertEquals(1, stats.getWordSplits());
+        assertEquals(0, stats.getNanos());
+
+        // 同じスレッドのセグメンタで共有できる
+        ECNaviSegmenter other = new ECNaviSegmenter();
+        other.setStats(stats);
+        other.segment(text, 0, 4, new ECNaviSegmenter.Handler() {
+                public void token(char[] term, int termOffset, int termLength,
+                    int start, int end, int type, int positionIncrement) {
+                }
+            });
+        assertEquals(2, stats.getDocuments());
+        assertEquals(text.length + 4, stats.getChars());
+        assertEquals(4, stats.getHankakuMerges());
+
+        TokenizerStats timed = new TokenizerStats(true);
+        segmenter.setStats(timed);
+        segment(segmenter, text, 0, text.length);
+        assertTrue(timed.getNanos() > 0);
+        timed.add(stats);
+        assertEquals(3, timed.getDocuments());
+    }
+
+    public void testUnhyphenateMode() {
+        // ハイフン抜きの Token 以外は切り出し方によらず同じ.
+        // FULL は ALL で結合される連結ごとに, 最も長い結合 (他の結合に含まれないもの) を返す
+        String alphabet = "ab-- -あｶﾞx";
+        Random random = new Random(20110401L);
+        Map<String, String> args = new HashMap<String, String>();
+        ECNaviSegmenter all = new ECNaviSegmenter();
+        for (String mode : new String[] {"full", "adjacent", "none"}) {
+            args.put(TokenizerProfile.UNHYPHENATE_MODE, mode);
+            ECNaviSegmenter segmenter = new ECNaviSegmenter(TokenizerProfile
+                    .getInstance(args));
+            for (int n = 0; n < 2000; ++n) {
+                char[] text = new char[random.nextInt(40)];
+                for (int i = 0; i < text.length; ++i) {
+                    text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+                }
+                String message = mode + ": " + new String(text);
+                List<String> expected = segment(all, text, 0, text.length);
+                List<String> actual = segment(segmenter, text, 0, text.length);
+                List<String> expectedParts = new ArrayList<String>();
+                List<int[]> expectedRanges = new ArrayList<int[]>();
+                List<String> expectedJoins = new ArrayList<String>();
+                for (String token : expected) {
+                    if (!token.contains(",UNHYPHENATED,")) {
+                        expectedParts.add(token);
+                    } else {
+                        expectedRanges.add(range(token));
+                        expectedJoins.add(token);
+                    }
+                }
+                List<String> longestJoins = new ArrayList<String>();
+                for (String token : expectedJoins) {
+                    int[] r = range(token);
+                    boolean longest = true;
+                    for (int[] other : expectedRanges) {
+                        if (other[0] <= r[0] && r[1] <= other[1]
+                                && other[1] - other[0] > r[1] - r[0]) {
+                            longest = false;
+                        }
+                    }
+                    if (longest) {
+                        longestJoins.add(token);
+                    }
+                }
+                List<String> actualParts = new ArrayList<String>();
+                List<String> actualJoins = new ArrayList<String>();
+                for (String token : actual) {
+                    if (!token.contains(",UNHYPHENATED,")) {
+                        actualParts.add(token);
+                    } else {
+                        assertTrue(message, expected.contains(token));
+                        actualJoins.add(token);
+                    }
+                }
+                assertEquals(message, expectedParts, actualParts);
+                if (mode.equals("full")) {
+                    assertEquals(message, longestJoins, actualJoins);
+                } else if (mode.equals("none")) {
+                    assertTrue(message, actualJoins.isEmpty());
+                }
+            }
+        }
+    }
+
+    private static int[] range(final String token) {
+        String[] fields = token.substring(token.lastIndexOf('(') + 1)
+            .split(",");
+        return new int[] {Integer.parseInt(fields[0]),
+            Integer.parseInt(fields[1])};
+    }
+
+    public void testStackUnhyphenatedReordersOnly() {
+        // 重ねてもハイフン抜きの Token 以外の並びと位置は変わらない.
+        // ハイフン抜きの Token は同じ startOffset の部分の直後に位置の増分 0 で並ぶ.
+        // 並びと位置の増分を除けば, 返す Token は重ねない場合と同じ
+        String alphabet = "ab-- -あ日ｶﾞx";
+        Random random = new Random(20110418L);
+        String[][] profiles = {
+            {},
+            {TokenizerProfile.BIGRAM_MODE, "minimal"},
+            {TokenizerProfile.UNHYPHENATE_MODE, "adjacent"},
+            {TokenizerProfile.MAX_HYPHEN, "2"},
+        };
+        for (String[] profile : profiles) {
+            Map<String, String> args = new HashMap<String, String>();
+            if (profile.length > 0) {
+                args.put(profile[0], profile[1]);
+            }
+            ECNaviSegmenter plain = new ECNaviSegmenter(TokenizerProfile
+                    .getInstance(args));
+            args.put(TokenizerProfile.STACK_UNHYPHENATED, "true");
+            ECNaviSegmenter stacked = new ECNaviSegmenter(TokenizerProfile
+                    .getInstance(args));
+            for (int n = 0; n < 2000; ++n) {
+                char[] text = new char[random.nextInt(40)];
+                for (int i = 0; i < text.length; ++i) {
+                    text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+                }
+                String message = args + ": " + new String(text);
+                List<String> expected = segment(plain, text, 0, text.length);
+                List<String> actual = segment(stacked, text, 0, text.length);
+                List<String> expectedParts = new ArrayList<String>();
+                List<String> expectedAll = new ArrayList<String>();
+                for (String token : expected) {
+                    if (!token.contains(",UNHYPHENATED,")) {
+                        expectedParts.add(token);
+                    }
+                    expectedAll.add(token.substring(0, token.lastIndexOf(',')));
+                }
+                List<String> actualParts = new ArrayList<String>();
+                List<String> actualAll = new ArrayList<String>();
+                String lastStart = null;
+                for (String token : actual) {
+                    String start = token.substring(token.indexOf('(') + 1,
+                            token.indexOf(','));
+                    if (!token.contains(",UNHYPHENATED,")) {
+                        actualParts.add(token);
+                        lastStart = start;
+                    } else {
+                        assertTrue(message, token.endsWith(",0)"));
+                        assertEquals(message, lastStart, start);
+                    }
+                    actualAll.add(token.substring(0, token.lastIndexOf(',')));
+                }
+                assertEquals(message, expectedParts, actualParts);
+                Collections.sort(expectedAll);
+                Collections.sort(actualAll);
+                assertEquals(message, expectedAll, actualAll);
+            }
+        }
+    }
+
+    public void testDoubleArrayTrie() throws IOException {
+        DoubleArrayTrie built = DoubleArrayTrie.build(Arrays.asList("東京",
+                    "東京都", "東京都庁", "東京タワー", "京都府", "都庁舎"));
+        File file = File.createTempFile("ecnavi-dictionary", ".dat");
+        try {
+            built.write(file);
+            DoubleArrayTrie loaded = DoubleArrayTrie.load(file);
+            for (DoubleArrayTrie trie : new DoubleArrayTrie[] {built, loaded}) {
+                // 2文字の語は入れない
+                assertEquals(5, trie.getWordCount());
+                assertEquals(5, trie.getMaxLength());
+                char[] text = "東京都庁舎東京タワ".toCharArray();
+                assertEquals(4, trie.matchLongest(text, 0, text.length));
+                assertEquals(3, trie.matchLongest(text, 0, 3));
+                assertEquals(0, trie.matchLongest(text, 1, text.length - 1));
+                assertEquals(3, trie.matchLongest(text, 2, text.length - 2));
+                assertEquals(0, trie.matchLongest(text, 5, 4));
+                int[] lengths = new int[trie.getMaxLength()];
+                assertEquals(2, trie.matchPrefixes(text, 0, text.length,
+                            lengths));
+                assertEquals(3, lengths[0]);
+                assertEquals(4, lengths[1]);
+                assertEquals(0, trie.matchPrefixes(text, 5, 4, lengths));
+            }
+        } finally {
+            file.delete();
+        }
+        DoubleArrayTrie empty = DoubleArrayTrie.build(
+                Collections.<String> emptyList());
+        assertEquals(0, empty.matchLongest("東京都".toCharArray(), 0, 3));
+    }
+
+    public void testDictionaryCompilerNormalize() {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("capitalize_kana", "true");
+        ECNaviSegmenter segmenter = new ECNaviSegmenter(
+                TokenizerProfile.getInstance(args));
+        assertEquals("ガキグ", DictionaryCompiler.normalize(segmenter, "ｶﾞｷｸﾞ"));
+        assertEquals("あいう", DictionaryCompiler.normalize(segmenter, "ぁいう"));
+        assertEquals("東京都", DictionaryCompiler.normalize(segmenter, "東京・都"));
+        assertNull(DictionaryCompiler.normalize(segmenter, "東京 都"));
+        assertNull(DictionaryCompiler.normalize(segmenter, "東京abc"));
+        assertNull(DictionaryCompiler.normalize(segmenter, "「東京」"));
+    }
+}
@@ -1,10 +1,15 @@
 package jp.ecnavi.lucene.analysis;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import junit.framework.TestCase;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 
 public final class ECNaviTokenizerTest extends TestCase {
 
@@ -14,6 +19,12 @@ public final class ECNaviTokenizerTest extends TestCase {
         int end;
     }
 
+    @Override
+    protected void setUp() {
+        // 設定ファイルの値に戻しておく. テストの実行順に依存させない
+        ECNaviTokenizer.setDoCapitalizeKana(false);
+    }
+
     public TestToken newToken(String termText, int start, int end) {
         TestToken token = new TestToken();
         token.termText = termText;
@@ -44,6 +55,63 @@ public final class ECNaviTokenizerTest extends TestCase {
         assertFalse("incrementToken() False", tokenizer.incrementToken());
     }
 
+    public void checkMinimalToken(final String str, final TestToken[] outTokens,
+            final int[] positionIncrements)
+        throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("bigramMode", "minimal");
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(
+                new java.io.StringReader(str),
+                TokenizerProfile.getInstance(args));
+        CharTermAttribute termAtt = (CharTermAttribute) tokenizer
+            .getAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = (OffsetAttribute) tokenizer
+            .getAttribute(OffsetAttribute.class);
+        PositionIncrementAttribute posIncAtt = (PositionIncrementAttribute) tokenizer
+            .getAttribute(PositionIncrementAttribute.class);
+        for (int i = 0; i < outTokens.length; i++) {
+            assertTrue("incrementToken() True", tokenizer.incrementToken());
+            assertEquals("termText", outTokens[i].termText, termAtt.toString());
+            assertEquals("start", outTokens[i].start, offsetAtt.startOffset());
+            assertEquals("end", outTokens[i].end, offsetAtt.endOffset());
+            assertEquals("positionIncrement", positionIncrements[i],
+                    posIncAtt.getPositionIncrement());
+        }
+        assertFalse("incrementToken() False", tokenizer.incrementToken());
+    }
+
+    public void checkProfileToken(final String str,
+            final Map<String, String> args, final TestToken[] outTokens)
+        throws IOException {
+        checkProfileToken(str, args, outTokens, null);
+    }
+
+    public void checkProfileToken(final String str,
+            final Map<String, String> args, final TestToken[] outTokens,
+            final int[] positionIncrements)
+        throws IOException {
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(
+                new java.io.StringReader(str),
+                TokenizerProfile.getInstance(args));
+        CharTermAttribute termAtt = (CharTermAttribute) tokenizer
+            .getAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = (OffsetAttribute) tokenizer
+            .getAttribute(OffsetAttribute.class);
+        PositionIncrementAttribute posIncAtt = (PositionIncrementAttribute) tokenizer
+            .getAttribute(PositionIncrementAttribute.class);
+        for (int i = 0; i < outTokens.length; i++) {
+            assertTrue("incrementToken() True", tokenizer.incrementToken());
+            assertEquals("termText", outTokens[i].termText, termAtt.toString());
+            assertEquals("start", outTokens[i].start, offsetAtt.startOffset());
+            assertEquals("end", outTokens[i].end, offsetAtt.endOffset());
+            if (positionIncrements != null) {
+                assertEquals("positionIncrement", positionIncrements[i],
+                        posIncAtt.getPositionIncrement());
+            }
+        }
+        assertFalse("incrementToken() False", tokenizer.incrementToken());
+    }
+
     public void checkTokenReusable(final String str1, final TestToken[] outTokens1,
             final String str2, final TestToken[] outTokens2)
         throws IOException {
@@ -404,6 +472,48 @@ public final class ECNaviTokenizerTest extends TestCase {
 
     }
 
+    /**
+     * 読み込みブロックの境界をまたぐいわゆる半角カナの濁点.
+     *
+     * @throws IOException
+     */
+    public void testBlockBoundary1() throws IOException {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 4095; i++) {
+            sb.append(' ');
+        }
+        String testString = sb.append("ｶﾞｷﾞ").toString();
+
+        TestToken[] outTokens = {
+            newToken("ガギ", 4095, 4099),
+        };
+        checkToken(testString, outTokens);
+
+    }
+
+    /**
+     * 読み込みブロックの境界をまたぐハイフン.
+     *
+     * @throws IOException
+     */
+    public void testBlockBoundary2() throws IOException {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 4095; i++) {
+            sb.append(' ');
+        }
+        String testString = sb.append("a-b").toString();
+
+        TestToken[] outTokens = {
+            newToken("a", 4095, 4096),
+            newToken("b", 4097, 4098),
+            newToken("ab", 4095, 4098),
+        };
+        checkToken(testString, outTokens);
+
+    }
+
     public void testSignTable() {
         try {
             // String[] NULL_ARR = null;
@@ -439,6 +549,98 @@ public final class ECNaviTokenizerTest extends TestCase {
         assertFalse(table.isSign('a'));
     }
 
+    public void testCharTypeTable() {
+        CharTypeTable table = CharTypeTable.getInstance(
+                SignTable.getInstance("+_"), "・=");
+
+        assertEquals(CharTypeTable.SINGLE, table.getType('a'));
+        assertEquals(CharTypeTable.SINGLE, table.getType('Ａ'));
+        assertEquals(CharTypeTable.SINGLE, table.getType('０'));
+        assertEquals(CharTypeTable.SINGLE, table.getType('+'));
+        assertEquals(CharTypeTable.SINGLE, table.getType('＿'));
+        assertEquals(CharTypeTable.SYMBOL, table.getType('#'));
+        assertEquals(CharTypeTable.SYMBOL, table.getType(' '));
+        assertEquals(CharTypeTable.SYMBOL, table.getType('。'));
+
+        assertEquals(CharTypeTable.DOUBLE, table.getType('あ'));
+        assertEquals(CharTypeTable.DOUBLE, table.getType('漢'));
+        assertEquals(CharTypeTable.DOUBLE, table.getType('ｶ'));
+        assertEquals(CharTypeTable.DOUBLE, table.getType('ﾞ'));
+        assertEquals(CharTypeTable.DOUBLE, table.getType('～'));
+        assertEquals(CharTypeTable.DOUBLE, table.getType('〜'));
+
+        assertTrue(table.isConcat('・'));
+        assertTrue(table.isConcat('='));
+        assertFalse(table.isConcat('☆'));
+        assertFalse(table.isConcat('a'));
+        assertFalse(table.isConcat(-1));
+    }
+
+    public void testCharFoldTable() {
+        CharTypeTable types = CharTypeTable.getInstance(
+                SignTable.getInstance("+_"), "・=");
+        CharFoldTable table = CharFoldTable.getInstance(types, false);
+        CharFoldTable capitalized = CharFoldTable.getInstance(types, true);
+
+        assertEquals('a', table.fold('A'));
+        assertEquals('a', table.fold('Ａ'));
+        assertEquals('a', table.fold('ａ'));
+        assertEquals('0', table.fold('０'));
+        assertEquals('-', table.fold('－'));
+        assertEquals('ー', table.fold('～'));
+        assertEquals('ー', table.fold('〜'));
+        assertEquals('カ', table.fold('ｶ'));
+        assertEquals('ァ', table.fold('ｧ'));
+        assertEquals('ア', capitalized.fold('ｧ'));
+        assertEquals('ぁ', table.fold('ぁ'));
+        assertEquals('あ', capitalized.fold('ぁ'));
+        assertEquals('漢', capitalized.fold('漢'));
+
+        assertEquals('ガ', table.compose('ｶ', 'ﾞ'));
+        assertEquals('パ', table.compose('ﾊ', 'ﾟ'));
+        assertEquals(0, table.compose('ｶ', 'ﾟ'));
+        assertEquals(0, table.compose('ｱ', 'ﾞ'));
+        assertEquals(0, table.compose('ｶ', -1));
+        assertTrue(CharFoldTable.isHankakuKana('ｦ'));
+        assertTrue(CharFoldTable.isHankakuKana('ﾟ'));
+        assertFalse(CharFoldTable.isHankakuKana('･'));
+    }
+
+    public void testTokenQueue() {
+        TokenQueue queue = new TokenQueue(1, 2);
+        char[] buffer = "abcde".toCharArray();
+        assertTrue(queue.isEmpty());
+
+        // 初期容量を超えて追加する
+        queue.add(buffer, 0, 2, 0, 2);
+        queue.add(buffer, 1, 3, 1, 5);
+        queue.add(buffer, 4, 1, 6, 7);
+
+        int i = queue.poll();
+        assertEquals("ab", new String(queue.getChars(),
+                    queue.getCharStart(i), queue.getLength(i)));
+        assertEquals(0, queue.getStart(i));
+        assertEquals(2, queue.getEnd(i));
+        i = queue.poll();
+        assertEquals("bcd", new String(queue.getChars(),
+                    queue.getCharStart(i), queue.getLength(i)));
+        assertEquals(1, queue.getStart(i));
+        assertEquals(5, queue.getEnd(i));
+        i = queue.poll();
+        assertEquals("e", new String(queue.getChars(),
+                    queue.getCharStart(i), queue.getLength(i)));
+        assertTrue(queue.isEmpty());
+
+        // 空になったら先頭から使い直す
+        queue.add(buffer, 2, 1, 3, 4);
+        i = queue.poll();
+        assertEquals(0, i);
+        assertEquals(0, queue.getCharStart(i));
+        assertEquals("c", new String(queue.getChars(),
+                    queue.getCharStart(i), queue.getLength(i)));
+        assertTrue(queue.isEmpty());
+    }
+
     /**
      *
      * @throws IOException
@@ -1035,6 +1237,239 @@ public final class ECNaviTokenizerTest extends TestCase {
 
     }
 
+    /*
+     * testUnHyphenation26 以降の期待値は, 読み込みと状態遷移を書き直す前の実装
+     * (PushbackReader で1文字ずつ読んでいたもの) が返した Token をそのまま写したもの.
+     * 既定の unhyphenateMode="all", maxHyphen=5 で同じ Token を返すことを確かめる.
+     */
+    public void testUnHyphenation26() throws IOException {
+
+        String testString = "a-b- c-d";
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 5, 6),
+            newToken("d", 7, 8),
+            newToken("ab", 0, 3),
+            newToken("cd", 5, 8),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation27() throws IOException {
+
+        String testString = "KX-PW- AB-CD型";
+        TestToken[] outTokens = {
+            newToken("kx", 0, 2),
+            newToken("pw", 3, 5),
+            newToken("ab", 7, 9),
+            newToken("cd", 10, 12),
+            newToken("kxpw", 0, 5),
+            newToken("abcd", 7, 12),
+            newToken("型", 12, 13),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation28() throws IOException {
+
+        String testString = "a-b-c-d-e-f-g-h";
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("f", 10, 11),
+            newToken("ab", 0, 3),
+            newToken("abc", 0, 5),
+            newToken("bc", 2, 5),
+            newToken("abcd", 0, 7),
+            newToken("bcd", 2, 7),
+            newToken("cd", 4, 7),
+            newToken("abcde", 0, 9),
+            newToken("bcde", 2, 9),
+            newToken("cde", 4, 9),
+            newToken("de", 6, 9),
+            newToken("abcdef", 0, 11),
+            newToken("bcdef", 2, 11),
+            newToken("cdef", 4, 11),
+            newToken("def", 6, 11),
+            newToken("ef", 8, 11),
+            newToken("g", 12, 13),
+            newToken("h", 14, 15),
+            newToken("gh", 12, 15),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation29() throws IOException {
+
+        String testString = "ab-cd-ef-gh-ij-kl";
+        TestToken[] outTokens = {
+            newToken("ab", 0, 2),
+            newToken("cd", 3, 5),
+            newToken("ef", 6, 8),
+            newToken("gh", 9, 11),
+            newToken("ij", 12, 14),
+            newToken("kl", 15, 17),
+            newToken("abcd", 0, 5),
+            newToken("abcdef", 0, 8),
+            newToken("cdef", 3, 8),
+            newToken("abcdefgh", 0, 11),
+            newToken("cdefgh", 3, 11),
+            newToken("efgh", 6, 11),
+            newToken("abcdefghij", 0, 14),
+            newToken("cdefghij", 3, 14),
+            newToken("efghij", 6, 14),
+            newToken("ghij", 9, 14),
+            newToken("abcdefghijkl", 0, 17),
+            newToken("cdefghijkl", 3, 17),
+            newToken("efghijkl", 6, 17),
+            newToken("ghijkl", 9, 17),
+            newToken("ijkl", 12, 17),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation30() throws IOException {
+
+        String testString = "a-b-c-d-e-f- g-h-i";
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("f", 10, 11),
+            newToken("ab", 0, 3),
+            newToken("abc", 0, 5),
+            newToken("bc", 2, 5),
+            newToken("abcd", 0, 7),
+            newToken("bcd", 2, 7),
+            newToken("cd", 4, 7),
+            newToken("abcde", 0, 9),
+            newToken("bcde", 2, 9),
+            newToken("cde", 4, 9),
+            newToken("de", 6, 9),
+            newToken("abcdef", 0, 11),
+            newToken("bcdef", 2, 11),
+            newToken("cdef", 4, 11),
+            newToken("def", 6, 11),
+            newToken("ef", 8, 11),
+            newToken("g", 13, 14),
+            newToken("h", 15, 16),
+            newToken("i", 17, 18),
+            newToken("gh", 13, 16),
+            newToken("ghi", 13, 18),
+            newToken("hi", 15, 18),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation31() throws IOException {
+
+        String testString = "x-y--z-w";
+        TestToken[] outTokens = {
+            newToken("x", 0, 1),
+            newToken("y", 2, 3),
+            newToken("xy", 0, 3),
+            newToken("z", 5, 6),
+            newToken("w", 7, 8),
+            newToken("zw", 5, 8),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation32() throws IOException {
+
+        String testString = "-a-b-c-";
+        TestToken[] outTokens = {
+            newToken("a", 1, 2),
+            newToken("b", 3, 4),
+            newToken("c", 5, 6),
+            newToken("ab", 1, 4),
+            newToken("abc", 1, 6),
+            newToken("bc", 3, 6),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation33() throws IOException {
+
+        String testString = "a-b-c日本-d-e";
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("ab", 0, 3),
+            newToken("abc", 0, 5),
+            newToken("bc", 2, 5),
+            newToken("日本", 5, 7),
+            newToken("d", 8, 9),
+            newToken("e", 10, 11),
+            newToken("de", 8, 11),
+        };
+        checkToken(testString, outTokens);
+    }
+
+    public void testUnHyphenation34() throws IOException {
+
+        String testString = "ＫＸ－ＰＷ－ＡＢ 1-2-3-4-5-6-7-8-9-10-11-12-13";
+        TestToken[] outTokens = {
+            newToken("kx", 0, 2),
+            newToken("pw", 3, 5),
+            newToken("ab", 6, 8),
+            newToken("kxpw", 0, 5),
+            newToken("kxpwab", 0, 8),
+            newToken("pwab", 3, 8),
+            newToken("1", 9, 10),
+            newToken("2", 11, 12),
+            newToken("3", 13, 14),
+            newToken("4", 15, 16),
+            newToken("5", 17, 18),
+            newToken("6", 19, 20),
+            newToken("12", 9, 12),
+            newToken("123", 9, 14),
+            newToken("23", 11, 14),
+            newToken("1234", 9, 16),
+            newToken("234", 11, 16),
+            newToken("34", 13, 16),
+            newToken("12345", 9, 18),
+            newToken("2345", 11, 18),
+            newToken("345", 13, 18),
+            newToken("45", 15, 18),
+            newToken("123456", 9, 20),
+            newToken("23456", 11, 20),
+            newToken("3456", 13, 20),
+            newToken("456", 15, 20),
+            newToken("56", 17, 20),
+            newToken("7", 21, 22),
+            newToken("8", 23, 24),
+            newToken("9", 25, 26),
+            newToken("10", 27, 29),
+            newToken("11", 30, 32),
+            newToken("12", 33, 35),
+            newToken("78", 21, 24),
+            newToken("789", 21, 26),
+            newToken("89", 23, 26),
+            newToken("78910", 21, 29),
+            newToken("8910", 23, 29),
+            newToken("910", 25, 29),
+            newToken("7891011", 21, 32),
+            newToken("891011", 23, 32),
+            newToken("91011", 25, 32),
+            newToken("1011", 27, 32),
+            newToken("789101112", 21, 35),
+            newToken("89101112", 23, 35),
+            newToken("9101112", 25, 35),
+            newToken("101112", 27, 35),
+            newToken("1112", 30, 35),
+            newToken("13", 36, 38),
+        };
+        checkToken(testString, outTokens);
+    }
+
     public void testSpecialSymbol1() throws IOException {
         String testString = "だ☆ひ";
         TestToken[] outTokens = {
@@ -1417,6 +1852,27 @@ public final class ECNaviTokenizerTest extends TestCase {
 
     }
 
+    public void testTokenResuable2() throws IOException {
+
+        // 半角カナの結合で終わる文書の後でもオフセットがずれない
+        String testString1 = "ｶﾞｷﾞ";
+
+        TestToken[] outTokens1 = {
+            newToken("ガギ", 0, 4),
+        };
+
+        String testString2 = "ab-c";
+
+        TestToken[] outTokens2 = {
+            newToken("ab", 0, 2),
+            newToken("c", 3, 4),
+            newToken("abc", 0, 4),
+        };
+        checkTokenReusable(testString1, outTokens1,
+                testString2, outTokens2);
+
+    }
+
     public void testFullSizeSpace1() throws IOException {
         String testString = "つのだ　ひろ";
         TestToken[] outTokens = {
@@ -1486,4 +1942,477 @@ public final class ECNaviTokenizerTest extends TestCase {
         checkToken(testString, outTokens, true);
     }
     */
+
+    public void testMinimalBigram1() throws IOException {
+
+        // 偶数文字: 重ならない bi-gram だけで覆える
+        String testString = "東京都庁";
+
+        TestToken[] outTokens = {
+            newToken("東京", 0, 2),
+            newToken("都庁", 2, 4),
+        };
+        checkMinimalToken(testString, outTokens, new int[] {1, 2});
+
+    }
+
+    public void testMinimalBigram2() throws IOException {
+
+        // 奇数文字: 末尾の bi-gram を重ねる
+        String testString = "東京都庁舎";
+
+        TestToken[] outTokens = {
+            newToken("東京", 0, 2),
+            newToken("都庁", 2, 4),
+            newToken("庁舎", 3, 5),
+        };
+        checkMinimalToken(testString, outTokens, new int[] {1, 2, 1});
+
+    }
+
+    public void testMinimalBigram3() throws IOException {
+
+        String testString = "京都 Apache あいう ん";
+
+        TestToken[] outTokens = {
+            newToken("京都", 0, 2),
+            newToken("apache", 3, 9),
+            newToken("あい", 10, 12),
+            newToken("いう", 11, 13),
+            newToken("ん", 14, 15),
+        };
+        checkMinimalToken(testString, outTokens, new int[] {1, 1, 1, 1, 1});
+
+    }
+
+    public void testMinimalBigram4() throws IOException {
+
+        // 連続の終わりを読むまで保留した bi-gram の後に次のTokenを返す
+        String testString = "あいうえおa-b";
+
+        TestToken[] outTokens = {
+            newToken("あい", 0, 2),
+            newToken("うえ", 2, 4),
+            newToken("えお", 3, 5),
+            newToken("a", 5, 6),
+            newToken("b", 7, 8),
+            newToken("ab", 5, 8),
+        };
+        checkMinimalToken(testString, outTokens, new int[] {1, 2, 1, 1, 1, 1});
+
+    }
+
+    public void testTokenizerProfile() throws IOException {
+
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("capitalize_kana", "true");
+        args.put("allowed_sign", "@");
+        args.put("concat_char", "");
+        TokenizerProfile profile = TokenizerProfile.getInstance(args);
+        assertTrue(profile.isCapitalizeKana());
+        assertEquals(BigramMode.ALL, profile.getBigramMode());
+        assertFalse(TokenizerProfile.getDefault().isCapitalizeKana());
+
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(
+                new java.io.StringReader("ぁ・ぃ a@b a#b"), profile);
+        CharTermAttribute termAtt = (CharTermAttribute) tokenizer
+            .getAttribute(CharTermAttribute.class);
+        String[] terms = {"あ", "い", "a@b", "a", "b"};
+        for (int i = 0; i < terms.length; i++) {
+            assertTrue(tokenizer.incrementToken());
+            assertEquals(terms[i], termAtt.toString());
+        }
+        assertFalse(tokenizer.incrementToken());
+
+        // 設定を指定しない Tokenizer はプロパティファイルの値を使う
+        checkToken("ぁ・ぃ", new TestToken[] {newToken("ぁぃ", 0, 3)});
+
+        try {
+            args.put("bigramMode", "none");
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    public void testUnhyphenateModeFull() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("unhyphenateMode", "full");
+
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("abcde", 0, 9),
+            newToken("f", 11, 12),
+            newToken("g", 13, 14),
+            newToken("fg", 11, 14),
+        };
+        checkProfileToken("A-B-C-D-E--F-G", args, outTokens);
+    }
+
+    public void testUnhyphenateModeAdjacent() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("unhyphenateMode", "adjacent");
+
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("ab", 0, 3),
+            newToken("bc", 2, 5),
+            newToken("cd", 4, 7),
+            newToken("de", 6, 9),
+            newToken("f", 11, 12),
+            newToken("g", 13, 14),
+            newToken("fg", 11, 14),
+        };
+        checkProfileToken("A-B-C-D-E--F-G", args, outTokens);
+    }
+
+    public void testUnhyphenateModeNone() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("unhyphenateMode", "none");
+
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("f", 11, 12),
+            newToken("g", 13, 14),
+            newToken("kx", 15, 17),
+            newToken("あい", 18, 20),
+        };
+        checkProfileToken("A-B-C-D-E--F-G KX-あい", args, outTokens);
+    }
+
+    public void testMaxHyphen() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("maxHyphen", "2");
+
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("ab", 0, 3),
+            newToken("abc", 0, 5),
+            newToken("bc", 2, 5),
+            newToken("d", 6, 7),
+        };
+        checkProfileToken("a-b-c-d", args, outTokens);
+
+        // 既定より長い連結も切り出せる
+        args.put("maxHyphen", "7");
+        args.put("unhyphenateMode", "full");
+        outTokens = new TestToken[] {
+            newToken("a", 0, 1),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("f", 10, 11),
+            newToken("g", 12, 13),
+            newToken("abcdefg", 0, 13),
+        };
+        checkProfileToken("a-b-c-d-e-f-g", args, outTokens);
+
+        String[] invalid = {"0", "17", "x"};
+        for (String value : invalid) {
+            args.put("maxHyphen", value);
+            try {
+                TokenizerProfile.getInstance(args);
+                fail(value);
+            } catch (IllegalArgumentException e) {
+                // OK
+            }
+        }
+        args.put("maxHyphen", "5");
+        args.put("unhyphenateMode", "some");
+        try {
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    public void testLongTokenModeDrop() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("longTokenMode", "drop");
+        args.put("maxTokenLength", "8");
+
+        // 最大の文字長ちょうどの文字列は残す.
+        // 長い文字列はハイフン抜きの結合にも加えない
+        TestToken[] outTokens = {
+            newToken("ab", 0, 2),
+            newToken("12345678", 3, 11),
+            newToken("cd", 23, 25),
+            newToken("ef", 26, 28),
+            newToken("cdef", 23, 28),
+            newToken("日本", 29, 31),
+        };
+        checkProfileToken("ab 12345678 0123456789-cd-ef 日本", args, outTokens);
+    }
+
+    public void testLongTokenModePrefix() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("longTokenMode", "prefix");
+        args.put("maxTokenLength", "8");
+
+        TestToken[] outTokens = {
+            newToken("a", 0, 1),
+            newToken("01234567", 2, 14),
+            newToken("日本", 14, 16),
+        };
+        checkProfileToken("a-0123456789ab日本", args, outTokens);
+    }
+
+    public void testLongTokenModeHash() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("longTokenMode", "hash");
+        args.put("maxTokenLength", "8");
+
+        // 同じ文字列は同じハッシュ値に, 最大の文字長の後だけが違う文字列は違うハッシュ値になる
+        ECNaviTokenizer tokenizer = new ECNaviTokenizer(
+                new java.io.StringReader("0123456789 ０１２３４５６７８９ 0123456788"),
+                TokenizerProfile.getInstance(args));
+        CharTermAttribute termAtt = (CharTermAttribute) tokenizer
+            .getAttribute(CharTermAttribute.class);
+        OffsetAttribute offsetAtt = (OffsetAttribute) tokenizer
+            .getAttribute(OffsetAttribute.class);
+        assertTrue(tokenizer.incrementToken());
+        String hash = termAtt.toString();
+        assertTrue(hash, hash.matches("[0-9a-f]{16}"));
+        assertEquals(0, offsetAtt.startOffset());
+        assertEquals(10, offsetAtt.endOffset());
+        assertTrue(tokenizer.incrementToken());
+        assertEquals(hash, termAtt.toString());
+        assertEquals(11, offsetAtt.startOffset());
+        assertEquals(21, offsetAtt.endOffset());
+        assertTrue(tokenizer.incrementToken());
+        assertFalse(hash.equals(termAtt.toString()));
+        assertFalse(tokenizer.incrementToken());
+
+        // 最大の文字長がハッシュ値より短くてもよい
+        args.put("maxTokenLength", "4");
+        checkProfileToken("abc", args, new TestToken[] {newToken("abc", 0, 3)});
+    }
+
+    public void testStackUnhyphenated() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("stackUnhyphenated", "true");
+
+        // ハイフン抜きの Token は結合した最初の部分に重ねる
+        TestToken[] outTokens = {
+            newToken("ab", 0, 2),
+            newToken("abcd", 0, 5),
+            newToken("abcdef", 0, 8),
+            newToken("cd", 3, 5),
+            newToken("cdef", 3, 8),
+            newToken("ef", 6, 8),
+            newToken("gh", 9, 11),
+            newToken("日本", 11, 13),
+            newToken("本語", 12, 14),
+            newToken("x", 14, 15),
+            newToken("xy", 14, 17),
+            newToken("y", 16, 17),
+        };
+        int[] positionIncrements = {1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1};
+        checkProfileToken("ab-cd-ef gh日本語x-y", args, outTokens,
+                positionIncrements);
+
+        args.put("unhyphenateMode", "full");
+        TestToken[] fullTokens = {
+            newToken("a", 0, 1),
+            newToken("abcde", 0, 9),
+            newToken("b", 2, 3),
+            newToken("c", 4, 5),
+            newToken("d", 6, 7),
+            newToken("e", 8, 9),
+            newToken("f", 11, 12),
+            newToken("fg", 11, 14),
+            newToken("g", 13, 14),
+        };
+        int[] fullIncrements = {1, 0, 1, 1, 1, 1, 1, 0, 1};
+        checkProfileToken("A-B-C-D-E--F-G", args, fullTokens, fullIncrements);
+
+        args.put("stackUnhyphenated", "yes");
+        try {
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    public void testMaxTokenLength() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("maxTokenLength", "4");
+
+        TestToken[] outTokens = {
+            newToken("0123", 0, 4),
+            newToken("4567", 4, 8),
+            newToken("89", 8, 10),
+        };
+        checkProfileToken("0123456789", args, outTokens);
+
+        String[] invalid = {"0", "256"};
+        for (String value : invalid) {
+            args.put("maxTokenLength", value);
+            try {
+                TokenizerProfile.getInstance(args);
+                fail(value);
+            } catch (IllegalArgumentException e) {
+                // OK
+            }
+        }
+        args.put("maxTokenLength", "255");
+        args.put("longTokenMode", "truncate");
+        try {
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    public void testDictionary() throws IOException {
+        File file = File.createTempFile("ecnavi-dictionary", ".dat");
+        try {
+            DoubleArrayTrie.build(Arrays.asList("東京都", "東京都庁", "都庁舎",
+                        "ガギグ")).write(file);
+            Map<String, String> args = new HashMap<String, String>();
+            args.put("dictionary", file.getPath());
+
+            // 索引時は全ての bi-gram と, そこから始まる語を重ねる
+            TestToken[] allTokens = {
+                newToken("東京", 0, 2),
+                newToken("東京都", 0, 3),
+                newToken("東京都庁", 0, 4),
+                newToken("京都", 1, 3),
+                newToken("都庁", 2, 4),
+                newToken("都庁舎", 2, 5),
+                newToken("庁舎", 3, 5),
+                newToken("舎と", 4, 6),
+                newToken("とガ", 5, 8),
+                newToken("ガギ", 6, 10),
+                newToken("ガギグ", 6, 12),
+                newToken("ギグ", 8, 12),
+            };
+            int[] allIncrements = {1, 0, 0, 1, 1, 0, 1, 1, 1, 1, 0, 1};
+            checkProfileToken("東京都庁舎とｶﾞｷﾞｸﾞ", args, allTokens,
+                    allIncrements);
+
+            // 検索時は最長一致の語と, 語で覆えない文字を覆う bi-gram を索引時と同じ位置で返す
+            args.put("bigramMode", "minimal");
+            TestToken[] minimalTokens = {
+                newToken("東京都庁", 0, 4),
+                newToken("舎と", 4, 6),
+                newToken("ガギグ", 6, 12),
+            };
+            int[] minimalIncrements = {1, 4, 2};
+            checkProfileToken("東京都庁舎とｶﾞｷﾞｸﾞ", args, minimalTokens,
+                    minimalIncrements);
+
+            // 語で連続の最後まで覆えば, 次の Token は返さなかった bi-gram の分だけ進める
+            TestToken[] gapTokens = {
+                newToken("東京都", 0, 3),
+                newToken("abc", 4, 7),
+            };
+            int[] gapIncrements = {1, 2};
+            checkProfileToken("東京都 abc", args, gapTokens, gapIncrements);
+
+            // 語の後に1文字だけ残れば最後の bi-gram で覆う
+            TestToken[] tailTokens = {
+                newToken("東京都", 0, 3),
+                newToken("都は", 2, 4),
+            };
+            int[] tailIncrements = {1, 2};
+            checkProfileToken("東京都は", args, tailTokens, tailIncrements);
+
+            args.put("dictionary", file.getPath() + ".missing");
+            try {
+                TokenizerProfile.getInstance(args);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // OK
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testEdgeNGram() throws IOException {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("edgeNGram", "index");
+        args.put("minGramSize", "2");
+        args.put("maxGramSize", "4");
+
+        // ASCII文字列の Token の後に, Token より短い前方の n-gram を重ねる
+        TestToken[] indexTokens = {
+            newToken("abc", 0, 3),
+            newToken("ab", 0, 3),
+            newToken("12345", 4, 9),
+            newToken("12", 4, 9),
+            newToken("123", 4, 9),
+            newToken("1234", 4, 9),
+            newToken("abc12345", 0, 9),
+            newToken("ab", 0, 9),
+            newToken("abc", 0, 9),
+            newToken("abc1", 0, 9),
+            newToken("x", 10, 11),
+            newToken("日本", 11, 13),
+        };
+        int[] indexIncrements = {1, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1};
+        checkProfileToken("ABC-12345 x日本", args, indexTokens,
+                indexIncrements);
+
+        // 検索時は maxGramSize より長い Token を切り詰める
+        args.put("edgeNGram", "query");
+        TestToken[] queryTokens = {
+            newToken("abc", 0, 3),
+            newToken("1234", 4, 9),
+            newToken("abc1", 0, 9),
+            newToken("x", 10, 11),
+            newToken("日本", 11, 13),
+        };
+        checkProfileToken("ABC-12345 x日本", args, queryTokens);
+
+        // ハッシュ値は前方の n-gram にしない
+        args.put("edgeNGram", "index");
+        args.put("maxTokenLength", "4");
+        args.put("longTokenMode", "hash");
+        TokenizerProfile profile = TokenizerProfile.getInstance(args);
+        ECNaviSegmenter segmenter = new ECNaviSegmenter(profile);
+        char[] text = "abcdefgh".toCharArray();
+        segmenter.reset(text, 0, text.length);
+        assertTrue(segmenter.next());
+        assertEquals(16, segmenter.getTermLength());
+        assertFalse(segmenter.next());
+
+        args.remove("maxTokenLength");
+        args.remove("longTokenMode");
+        args.put("minGramSize", "5");
+        try {
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+        args.put("minGramSize", "1");
+        args.put("edgeNGram", "both");
+        try {
+            TokenizerProfile.getInstance(args);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
 }
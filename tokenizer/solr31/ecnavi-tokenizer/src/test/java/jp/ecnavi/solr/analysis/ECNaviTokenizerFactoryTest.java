@@ -0,0 +1,60 @@
+package jp.ecnavi.solr.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import jp.ecnavi.lucene.analysis.ECNaviTokenizer;
+
+public final class ECNaviTokenizerFactoryTest extends TestCase {
+
+    private static ECNaviTokenizerFactory newFactory(
+            final String unhyphenateMode) {
+        Map<String, String> args = new HashMap<String, String>();
+        args.put("unhyphenateMode", unhyphenateMode);
+        ECNaviTokenizerFactory factory = new ECNaviTokenizerFactory();
+        factory.init(args);
+        return factory;
+    }
+
+    private static void tokenize(final ECNaviTokenizerFactory factory,
+            final String str) throws IOException {
+        ECNaviTokenizer tokenizer = factory.create(new StringReader(str));
+        while (tokenizer.incrementToken()) {
+            // 統計を数えるだけ
+        }
+        tokenizer.end();
+        tokenizer.close();
+    }
+
+    private static long documents(final ECNaviTokenizerFactory factory) {
+        return (Long) factory.getStatistics().get("documents");
+    }
+
+    public void testSameArgsShareStats() throws IOException {
+        // fieldType の索引時と検索時のように同じ属性の Factory
+        ECNaviTokenizerFactory index = newFactory("full");
+        ECNaviTokenizerFactory query = newFactory("full");
+        assertEquals(index.getName(), query.getName());
+        long before = documents(query);
+
+        tokenize(index, "検索エンジン");
+        tokenize(query, "KX-PW");
+        // 後から読んだ方だけが登録されても, 両方の文書が出る
+        assertEquals(before + 2, documents(query));
+        assertEquals(before + 2, documents(index));
+    }
+
+    public void testOtherArgsDoNotShareStats() throws IOException {
+        ECNaviTokenizerFactory all = newFactory("adjacent");
+        ECNaviTokenizerFactory none = newFactory("none");
+        assertFalse(all.getName().equals(none.getName()));
+        long before = documents(none);
+
+        tokenize(all, "検索エンジン");
+        assertEquals(before, documents(none));
+    }
+}